@@ -0,0 +1,140 @@
+package com.keqing.bench;
+
+import com.keqing.db.ConnectionPool;
+import com.keqing.model.Product;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded H2 database in MySQL mode with the FluffyCMS schema and a synthetic catalog.
+ * Every instance gets its own in-memory database, so benchmarks never see each other's rows.
+ */
+final class BenchmarkDatabase implements AutoCloseable {
+
+    static final int CATEGORY_COUNT = 20;
+    static final int REVIEWS_PER_PRODUCT = 5;
+
+    private static final AtomicInteger DATABASE_IDS = new AtomicInteger();
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private final String url;
+    // Keeps the in-memory database alive until close
+    private final Connection anchor;
+
+    BenchmarkDatabase() throws SQLException {
+        this.url = "jdbc:h2:mem:bench" + DATABASE_IDS.incrementAndGet() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        this.anchor = DriverManager.getConnection(url, USER, PASSWORD);
+        try (Statement stmt = anchor.createStatement()) {
+            stmt.execute("CREATE TABLE product_category (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100), description VARCHAR(255))");
+            stmt.execute("CREATE TABLE products (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(100), description TEXT, "
+                    + "category INT, price DOUBLE, stock_quantity INT, weight DOUBLE, image_url VARCHAR(255), "
+                    + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, is_available BOOLEAN)");
+            stmt.execute("CREATE INDEX products_category ON products (category)");
+            stmt.execute("CREATE INDEX products_created ON products (created_at, id)");
+            stmt.execute("CREATE INDEX products_price ON products (price, id)");
+            stmt.execute("CREATE TABLE review (revId INT AUTO_INCREMENT PRIMARY KEY, product INT, star INT, "
+                    + "description TEXT, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("CREATE INDEX review_product ON review (product, revId)");
+            stmt.execute("CREATE TABLE featured_product (id INT, `from` TIMESTAMP, `to` TIMESTAMP)");
+        }
+    }
+
+    ConnectionPool newPool() {
+        return new ConnectionPool(url, USER, PASSWORD);
+    }
+
+    /**
+     * Inserts {@code productCount} products spread over {@link #CATEGORY_COUNT} categories,
+     * each with {@link #REVIEWS_PER_PRODUCT} reviews. The same seed always produces the same catalog.
+     */
+    void seed(int productCount) throws SQLException {
+        Random random = new Random(productCount);
+        anchor.setAutoCommit(false);
+        try (PreparedStatement category = anchor.prepareStatement(
+                     "INSERT INTO product_category (name, description) VALUES (?, ?)");
+             PreparedStatement product = anchor.prepareStatement(
+                     "INSERT INTO products (name, description, category, price, stock_quantity, weight, image_url, created_at, is_available) "
+                             + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement review = anchor.prepareStatement(
+                     "INSERT INTO review (product, star, description) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= CATEGORY_COUNT; i++) {
+                category.setString(1, "Category " + i);
+                category.setString(2, "Synthetic category " + i);
+                category.addBatch();
+            }
+            category.executeBatch();
+
+            long start = System.currentTimeMillis() - productCount * 60_000L;
+            for (int i = 1; i <= productCount; i++) {
+                Product p = randomProduct(random, i);
+                product.setString(1, p.getName());
+                product.setString(2, p.getDescription());
+                product.setInt(3, p.getCategoryId());
+                product.setDouble(4, p.getPrice());
+                product.setInt(5, p.getStockQuantity());
+                product.setDouble(6, p.getWeight());
+                product.setString(7, p.getImageUrl());
+                product.setTimestamp(8, new Timestamp(start + i * 60_000L));
+                product.setBoolean(9, p.isAvailable());
+                product.addBatch();
+                for (int r = 0; r < REVIEWS_PER_PRODUCT; r++) {
+                    review.setInt(1, i);
+                    review.setInt(2, 1 + random.nextInt(5));
+                    review.setString(3, "Review " + r + " of product " + i);
+                    review.addBatch();
+                }
+                if (i % 1000 == 0) {
+                    product.executeBatch();
+                    review.executeBatch();
+                }
+            }
+            product.executeBatch();
+            review.executeBatch();
+            anchor.commit();
+        } finally {
+            anchor.setAutoCommit(true);
+        }
+    }
+
+    void truncateProducts() throws SQLException {
+        try (Statement stmt = anchor.createStatement()) {
+            stmt.execute("TRUNCATE TABLE products");
+        }
+    }
+
+    static List<Product> randomProducts(Random random, int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            products.add(randomProduct(random, i));
+        }
+        return products;
+    }
+
+    static Product randomProduct(Random random, int number) {
+        return new Product(0, "Product " + number,
+                "Synthetic product " + number + " with a description of typical length for the catalog",
+                1 + random.nextInt(CATEGORY_COUNT),
+                Math.round(random.nextDouble() * 10_000) / 100.0,
+                random.nextInt(200),
+                Math.round(random.nextDouble() * 5_000) / 1000.0,
+                "https://example.com/images/" + number + ".png",
+                new Date(),
+                random.nextInt(10) != 0);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        anchor.close();
+    }
+}
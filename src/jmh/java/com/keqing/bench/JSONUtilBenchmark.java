@@ -0,0 +1,100 @@
+package com.keqing.bench;
+
+import com.keqing.Utils.JSONUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JSONUtil} load, save and in-memory access on config files of different sizes.
+ * The config holds {@code keyCount} string values plus a string array of the same length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JSONUtilBenchmark {
+
+    private static final String ARRAY_NAME = "recentFiles";
+
+    @Param({"10", "1000"})
+    int keyCount;
+
+    private Path directory;
+    private Path configFile;
+    private JSONUtil config;
+    private String[] arrayValues;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // JSONUtil cannot read an empty file, so start from a path that does not exist yet
+        directory = Files.createTempDirectory("jsonutil-bench");
+        configFile = directory.resolve("config.json");
+        config = new JSONUtil(configFile.toString());
+        arrayValues = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            config.setConfigValue("key" + i, "value " + i);
+            arrayValues[i] = "/home/user/documents/file" + i + ".txt";
+        }
+        config.setStringArray(ARRAY_NAME, arrayValues);
+        config.saveConfig();
+        random = new SplittableRandom(42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(configFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public JSONUtil load() {
+        return new JSONUtil(configFile.toString());
+    }
+
+    @Benchmark
+    public void save() {
+        config.saveConfig();
+    }
+
+    @Benchmark
+    public Object getConfigValue() {
+        return config.getConfigValue("key" + random.nextInt(keyCount));
+    }
+
+    @Benchmark
+    public void setConfigValue() {
+        config.setConfigValue("key" + random.nextInt(keyCount), "updated");
+    }
+
+    @Benchmark
+    public String[] getStringArray() {
+        return config.getStringArray(ARRAY_NAME);
+    }
+
+    // Append then remove, so the array keeps its size across invocations
+    @Benchmark
+    public void appendAndRemoveFromStringArray() {
+        config.appendToStringArray(ARRAY_NAME, "/tmp/new.txt");
+        config.removeFromStringArray(ARRAY_NAME, "/tmp/new.txt");
+    }
+}
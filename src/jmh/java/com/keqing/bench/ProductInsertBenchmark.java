@@ -0,0 +1,74 @@
+package com.keqing.bench;
+
+import com.keqing.model.BulkInsertReport;
+import com.keqing.model.Product;
+import com.keqing.model.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk inserts through {@link ProductRepository#saveAll(List, int)} at different chunk sizes.
+ * The table is emptied before every iteration so all iterations insert into the same starting state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductInsertBenchmark {
+
+    @Param({"1000"})
+    int rowCount;
+
+    @Param({"100", "1000"})
+    int chunkSize;
+
+    private BenchmarkDatabase database;
+    private ProductRepository repository;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase();
+        repository = new ProductRepository(database.newPool());
+    }
+
+    @Setup(Level.Iteration)
+    public void resetTable() throws SQLException {
+        database.truncateProducts();
+    }
+
+    // saveAll assigns generated ids to the products, so every invocation gets fresh instances
+    @Setup(Level.Invocation)
+    public void createProducts() {
+        products = BenchmarkDatabase.randomProducts(new Random(rowCount), rowCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        repository.close();
+        database.close();
+    }
+
+    @Benchmark
+    public BulkInsertReport saveAll() {
+        return repository.saveAll(products, chunkSize);
+    }
+}
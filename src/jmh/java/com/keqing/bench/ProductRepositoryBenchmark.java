@@ -0,0 +1,122 @@
+package com.keqing.bench;
+
+import com.keqing.model.Page;
+import com.keqing.model.Product;
+import com.keqing.model.ProductDetail;
+import com.keqing.model.ProductRepository;
+import com.keqing.model.ProductSortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths of {@link ProductRepository}: finders, row mapping, pagination and product details,
+ * with and without the read-through cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductRepositoryBenchmark {
+
+    @Param({"1000", "10000"})
+    int catalogSize;
+
+    @Param({"false", "true"})
+    boolean cached;
+
+    private BenchmarkDatabase database;
+    private ProductRepository repository;
+    private List<Integer> detailIds;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase();
+        database.seed(catalogSize);
+        repository = new ProductRepository(database.newPool());
+        if (cached) {
+            repository.enableCache(catalogSize, TimeUnit.MINUTES.toMillis(10));
+        }
+        random = new SplittableRandom(42);
+        detailIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            detailIds.add(1 + random.nextInt(catalogSize));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        repository.close();
+        database.close();
+    }
+
+    private int randomId() {
+        return 1 + random.nextInt(catalogSize);
+    }
+
+    @Benchmark
+    public List<Product> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Product findById() {
+        return repository.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Product> findByCategory() {
+        return repository.findByCategory(1 + random.nextInt(BenchmarkDatabase.CATEGORY_COUNT));
+    }
+
+    @Benchmark
+    public List<Product> findByPriceRange() {
+        double min = random.nextInt(90);
+        return repository.findByPriceRange(min, min + 5);
+    }
+
+    @Benchmark
+    public List<Product> findRecent() {
+        return repository.findRecent(20);
+    }
+
+    @Benchmark
+    public Page<Product> findPage() {
+        return repository.findPage(ProductSortOrder.NEWEST_FIRST, null, 20);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> countProductsByCategory() {
+        return repository.countProductsByCategory();
+    }
+
+    @Benchmark
+    public ProductDetail getProductDetails() {
+        return repository.getProductDetails(randomId());
+    }
+
+    @Benchmark
+    public List<ProductDetail> getProductDetailsBatch() {
+        return repository.getProductDetails(detailIds);
+    }
+}
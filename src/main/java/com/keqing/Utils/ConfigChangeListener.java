@@ -0,0 +1,14 @@
+package com.keqing.Utils;
+
+import java.util.Set;
+
+/**
+ * Receives a callback after the configuration held by a {@link JSONUtil} changes, whether through its setters
+ * or because the file was reloaded. Only the keys whose values actually changed are reported; read their new
+ * values from the {@link JSONUtil}, which already holds the new snapshot.
+ */
+@FunctionalInterface
+public interface ConfigChangeListener {
+
+    void configChanged(JSONUtil config, Set<String> changedKeys);
+}
@@ -0,0 +1,172 @@
+package com.keqing.Utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * An insertion-ordered set of strings that serializes as a JSON array.
+ * Membership checks, additions and removals take constant time, so large server lists and flag sets can be
+ * changed in place instead of being copied. The set is safe to share between threads; readers share a
+ * read lock and only wait for a change that is in progress.
+ */
+public class JSONStringSet implements JSONString, Iterable<String> {
+
+    private final Set<String> elements;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<String> view = new View();
+
+    public JSONStringSet() {
+        this.elements = new LinkedHashSet<>();
+    }
+
+    public JSONStringSet(Collection<String> elements) {
+        this.elements = new LinkedHashSet<>(elements);
+    }
+
+    public static JSONStringSet fromJSONArray(JSONArray array) {
+        JSONStringSet set = new JSONStringSet();
+        for (int i = 0; i < array.length(); i++) {
+            set.elements.add(array.getString(i));
+        }
+        return set;
+    }
+
+    public boolean contains(String element) {
+        lock.readLock().lock();
+        try {
+            return elements.contains(element);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns false if the element was already present
+    public boolean add(String element) {
+        lock.writeLock().lock();
+        try {
+            return elements.add(element);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns false if the element was not present
+    public boolean remove(String element) {
+        lock.writeLock().lock();
+        try {
+            return elements.remove(element);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return elements.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns a read-only view that reflects later changes without copying.
+     * Its iterator fails fast if the set is changed while iterating, so prefer {@code forEach}, which holds
+     * the read lock throughout, when other threads may be writing.
+     */
+    public Set<String> asSet() {
+        return view;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return view.iterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super String> action) {
+        view.forEach(action);
+    }
+
+    public String[] toArray() {
+        lock.readLock().lock();
+        try {
+            return elements.toArray(new String[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // True if the other value holds the same strings in the same order, as a set or as a JSON array
+    public boolean similar(Object other) {
+        if (other instanceof JSONStringSet) {
+            return other == this || new JSONArray(((JSONStringSet) other).toArray()).similar(new JSONArray(toArray()));
+        }
+        return other instanceof JSONArray && ((JSONArray) other).similar(new JSONArray(toArray()));
+    }
+
+    @Override
+    public String toJSONString() {
+        lock.readLock().lock();
+        try {
+            StringBuilder json = new StringBuilder("[");
+            for (String element : elements) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append(JSONObject.quote(element));
+            }
+            return json.append(']').toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toJSONString();
+    }
+
+    private class View extends AbstractSet<String> {
+
+        @Override
+        public boolean contains(Object element) {
+            return element instanceof String && JSONStringSet.this.contains((String) element);
+        }
+
+        @Override
+        public int size() {
+            return JSONStringSet.this.size();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableSet(elements).iterator();
+        }
+
+        @Override
+        public void forEach(Consumer<? super String> action) {
+            lock.readLock().lock();
+            try {
+                elements.forEach(action);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
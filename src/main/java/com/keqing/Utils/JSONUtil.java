@@ -1,57 +1,275 @@
 package com.keqing.Utils;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Utility class to manage JSON configuration stored in a file.
  * The class provides methods to load, save, and manipulate configurations in JSON format.
+ * It is safe to share between threads: readers see an immutable snapshot and never lock, while every change
+ * copies the snapshot and publishes the copy. Values returned by the getters belong to that snapshot and
+ * must not be modified. String sets are the exception: they are changed in place through the string set
+ * methods, so membership changes cost constant time however large the set grows.
+ * Saving writes a temporary file and renames it over the config file, so the file is never left half-written.
+ * With {@link #startWatching()} the file is reloaded in the background whenever it changes on disk, and
+ * registered {@link ConfigChangeListener}s are told which keys changed.
  */
-public class JSONUtil {
+public class JSONUtil implements AutoCloseable {
 
-    private JSONObject config;
+    public static final long DEFAULT_SAVE_DELAY_MILLIS = 500;
+    // Editors often write a file in several steps; wait for them to finish before reloading
+    private static final long RELOAD_DELAY_MILLIS = 50;
+
+    // Shared by all instances; runs the delayed saves and the reloads triggered by file watching
+    private static final ScheduledExecutorService SAVER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "json-config-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile JSONObject config;
     private final File configFile;
+    private final boolean autoSave;
+    private final long saveDelayMillis;
+
+    private final Object writeLock = new Object();
+    private final Object saveLock = new Object();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    // Snapshot most recently written to disk, so unchanged configs are not rewritten
+    private JSONObject savedConfig;
+    // Timestamp and size of the file as we last wrote it, to recognise our own saves when watching
+    private FileTime savedModifiedTime;
+    private long savedSize = -1;
+
+    private final List<ConfigChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+    // Guarded by this
+    private WatchService watchService;
 
     // Constructor to initialize with a config file
     public JSONUtil(String filePath) {
+        this(filePath, false, DEFAULT_SAVE_DELAY_MILLIS);
+    }
+
+    /**
+     * @param autoSave        schedule a save after every change
+     * @param saveDelayMillis how long after the first unsaved change {@link #scheduleSave()} writes
+     */
+    public JSONUtil(String filePath, boolean autoSave, long saveDelayMillis) {
         this.configFile = new File(filePath);
+        this.autoSave = autoSave;
+        this.saveDelayMillis = saveDelayMillis;
         if (configFile.exists() && !configFile.isDirectory()) {
             loadConfig();
         } else {
             config = new JSONObject();
         }
+        savedConfig = config;
     }
 
     // Method to load the config from the file
     private void loadConfig() {
-        try (FileReader reader = new FileReader(configFile)) {
-            char[] buffer = new char[(int) configFile.length()];
-            reader.read(buffer);
-            String content = new String(buffer);
-            config = new JSONObject(content);
+        config = readConfig();
+    }
+
+    private JSONObject readConfig() {
+        if (configFile.length() == 0) {
+            return new JSONObject();
+        }
+        try {
+            return parseConfig();
         } catch (IOException e) {
             e.printStackTrace();
-            config = new JSONObject();
+            return new JSONObject();
+        }
+    }
+
+    // Parses straight from the file, without reading it into memory first
+    private JSONObject parseConfig() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(configFile.toPath(), StandardCharsets.UTF_8)) {
+            return new JSONObject(new JSONTokener(reader));
         }
     }
 
     // Method to save the current config to the file
     public void saveConfig() {
-        try {
-            if (configFile.isDirectory()) {
-                System.err.println("Cannot write to a directory. Please provide a valid file path.");
+        if (configFile.isDirectory()) {
+            System.err.println("Cannot write to a directory. Please provide a valid file path.");
+            return;
+        }
+        synchronized (saveLock) {
+            JSONObject snapshot = config;
+            if (snapshot == savedConfig && configFile.exists()) {
                 return;
             }
-            try (FileWriter writer = new FileWriter(configFile)) {
-                writer.write(config.toString(4));  // Pretty print with indentation
+            Path target = configFile.toPath().toAbsolutePath();
+            Path temp = null;
+            try {
+                temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    snapshot.write(writer, 4, 0);  // Pretty print with indentation
+                }
+                moveIntoPlace(temp, target);
+                savedConfig = snapshot;
+                savedModifiedTime = Files.getLastModifiedTime(target);
+                savedSize = Files.size(target);
+            } catch (IOException e) {
+                e.printStackTrace();
+                if (temp != null) {
+                    try {
+                        Files.deleteIfExists(temp);
+                    } catch (IOException ignored) {
+                        // Leave the stray temp file behind
+                    }
+                }
+            }
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Saves the config in the background, the save delay after the first call since the last scheduled save.
+     * Any number of calls within the delay result in a single write of the latest config. The delay is not
+     * restarted by later calls, so a steady stream of changes is still written at least once per delay.
+     */
+    public void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            SAVER.schedule(() -> {
+                saveScheduled.set(false);
+                saveConfig();
+            }, saveDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes any change not saved yet right away, without waiting for a scheduled save. The background saver
+     * is a daemon thread, so call this (or {@link #close()}) before exiting to keep the last changes.
+     */
+    public void flush() {
+        // A scheduled save that runs afterwards finds nothing new and skips the write
+        saveConfig();
+    }
+
+    // Stops watching the file and flushes pending changes
+    @Override
+    public void close() {
+        stopWatching();
+        flush();
+    }
+
+    // Applies a change to one key on a private copy of the config and publishes the copy
+    private void update(String key, Consumer<JSONObject> change) {
+        boolean changed;
+        synchronized (writeLock) {
+            JSONObject next = copyOf(config);
+            change.accept(next);
+            changed = !sameValue(config.opt(key), next.opt(key));
+            config = next;
+        }
+        if (autoSave) {
+            scheduleSave();
+        }
+        if (changed) {
+            fireChange(Set.of(key));
+        }
+    }
+
+    // Shallow copy; nested values are never modified once published, so they can be shared
+    private static JSONObject copyOf(JSONObject source) {
+        JSONObject copy = new JSONObject();
+        for (String key : source.keySet()) {
+            copy.put(key, source.get(key));
+        }
+        return copy;
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        if (a instanceof JSONStringSet) {
+            return ((JSONStringSet) a).similar(b);
+        }
+        if (b instanceof JSONStringSet) {
+            return ((JSONStringSet) b).similar(a);
+        }
+        if (a instanceof JSONObject) {
+            return ((JSONObject) a).similar(b);
+        }
+        if (a instanceof JSONArray) {
+            return ((JSONArray) a).similar(b);
+        }
+        return Objects.equals(a, b);
+    }
+
+    // Keys added, removed or given a different value between two snapshots
+    private static Set<String> changedKeys(JSONObject before, JSONObject after) {
+        Set<String> changed = new HashSet<>();
+        for (String key : before.keySet()) {
+            if (!sameValue(before.opt(key), after.opt(key))) {
+                changed.add(key);
+            }
+        }
+        for (String key : after.keySet()) {
+            if (!before.has(key)) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+
+    public void addChangeListener(ConfigChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ConfigChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void fireChange(Set<String> changedKeys) {
+        if (changedKeys.isEmpty()) {
+            return;
+        }
+        Set<String> keys = Set.copyOf(changedKeys);
+        for (ConfigChangeListener listener : changeListeners) {
+            try {
+                listener.configChanged(this, keys);
+            } catch (RuntimeException e) {
+                // A misbehaving listener must not stop the others from seeing the change
+                System.out.println("Config change listener failed: " + e.getMessage());
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
     }
 
@@ -62,12 +280,12 @@ public class JSONUtil {
 
     // Method to set a value in the config
     public void setConfigValue(String key, Object value) {
-        config.put(key, value);
+        update(key, next -> next.put(key, value));
     }
 
     // Method to remove a key from the config
     public void removeConfigValue(String key) {
-        config.remove(key);
+        update(key, next -> next.remove(key));
     }
 
     // Check if the config contains a specific key
@@ -77,12 +295,146 @@ public class JSONUtil {
 
     // Method to reload the config from the file
     public void reloadConfig() {
-        loadConfig();
+        publishLoaded(readConfig());
+    }
+
+    // Swaps in a snapshot read from the file and reports the keys that differ from the one it replaces
+    private void publishLoaded(JSONObject loaded) {
+        Set<String> changed;
+        synchronized (writeLock) {
+            keepStringSets(config, loaded);
+            changed = changedKeys(config, loaded);
+            config = loaded;
+        }
+        synchronized (saveLock) {
+            savedConfig = loaded;
+        }
+        fireChange(changed);
+    }
+
+    // Keys held as string sets stay string sets across reloads, and unchanged ones keep their instance
+    private static void keepStringSets(JSONObject current, JSONObject loaded) {
+        for (String key : current.keySet()) {
+            Object value = current.opt(key);
+            JSONArray reloaded = loaded.optJSONArray(key);
+            if (value instanceof JSONStringSet && reloaded != null) {
+                JSONStringSet set = (JSONStringSet) value;
+                loaded.put(key, set.similar(reloaded) ? set : JSONStringSet.fromJSONArray(reloaded));
+            }
+        }
     }
 
     // Method to clear all configurations
     public void clearConfig() {
-        config = new JSONObject();
+        Set<String> changed;
+        synchronized (writeLock) {
+            changed = config.keySet();
+            config = new JSONObject();
+        }
+        if (autoSave) {
+            scheduleSave();
+        }
+        fireChange(changed);
+    }
+
+    /**
+     * Starts watching the config file and reloading it in the background whenever it changes.
+     * Reloads that fail to parse, e.g. because the file is caught half-written by a non-atomic editor, are
+     * skipped and the current snapshot is kept. Listeners are called from the background thread.
+     */
+    public synchronized void startWatching() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        Path target = configFile.toPath().toAbsolutePath();
+        WatchService service = target.getFileSystem().newWatchService();
+        try {
+            target.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            service.close();
+            throw e;
+        }
+        Thread watcher = new Thread(() -> watch(service, target.getFileName()),
+                "json-config-watcher-" + target.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+        watchService = service;
+    }
+
+    public synchronized void stopWatching() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            watchService = null;
+        }
+    }
+
+    public synchronized boolean isWatching() {
+        return watchService != null;
+    }
+
+    // Runs on the watcher thread until the watch service is closed
+    private void watch(WatchService service, Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // On overflow events were lost, so the file may have changed
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) {
+                    scheduleReload();
+                }
+                if (!key.reset()) {
+                    System.err.println("Stopped watching " + configFile + ": its directory is no longer accessible.");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watching was stopped
+        }
+    }
+
+    private void scheduleReload() {
+        if (reloadScheduled.compareAndSet(false, true)) {
+            SAVER.schedule(() -> {
+                reloadScheduled.set(false);
+                reloadChangedFile();
+            }, RELOAD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void reloadChangedFile() {
+        // A missing or empty file is most likely mid-replace; the next event will bring the new content
+        if (!configFile.exists() || configFile.length() == 0) {
+            return;
+        }
+        synchronized (saveLock) {
+            // Our own save; reloading it could drop changes made since
+            try {
+                Path target = configFile.toPath();
+                if (Files.getLastModifiedTime(target).equals(savedModifiedTime) && Files.size(target) == savedSize) {
+                    return;
+                }
+            } catch (IOException e) {
+                return;
+            }
+        }
+        JSONObject loaded;
+        try {
+            loaded = parseConfig();
+        } catch (IOException | JSONException e) {
+            System.err.println("Could not reload " + configFile + ": " + e.getMessage());
+            return;
+        }
+        publishLoaded(loaded);
     }
 
     // New: Method to store an array (string array)
@@ -91,11 +443,15 @@ public class JSONUtil {
         for (String element : elements) {
             jsonArray.put(element);
         }
-        config.put(arrayName, jsonArray);
+        update(arrayName, next -> next.put(arrayName, jsonArray));
     }
 
     // New: Method to retrieve a string array from the config
     public String[] getStringArray(String arrayName) {
+        Object value = config.opt(arrayName);
+        if (value instanceof JSONStringSet) {
+            return ((JSONStringSet) value).toArray();
+        }
         JSONArray jsonArray = config.optJSONArray(arrayName);
         if (jsonArray == null) {
             return new String[0];  // Return empty array if not found
@@ -110,26 +466,106 @@ public class JSONUtil {
 
     // New: Method to append a value to an existing string array
     public void appendToStringArray(String arrayName, String newValue) {
-        JSONArray jsonArray = config.optJSONArray(arrayName);
-        if (jsonArray == null) {
-            jsonArray = new JSONArray();
+        if (config.opt(arrayName) instanceof JSONStringSet) {
+            addToStringSet(arrayName, newValue);
+            return;
         }
-        jsonArray.put(newValue);
-        config.put(arrayName, jsonArray);
+        update(arrayName, next -> {
+            JSONArray current = next.optJSONArray(arrayName);
+            // Published arrays are shared with readers, so build a new one
+            JSONArray jsonArray = current == null ? new JSONArray() : new JSONArray(current.toList());
+            jsonArray.put(newValue);
+            next.put(arrayName, jsonArray);
+        });
     }
 
     // New: Method to remove a specific value from an array
     public void removeFromStringArray(String arrayName, String valueToRemove) {
-        JSONArray jsonArray = config.optJSONArray(arrayName);
-        if (jsonArray != null) {
-            JSONArray newArray = new JSONArray();
-            for (int i = 0; i < jsonArray.length(); i++) {
-                String value = jsonArray.getString(i);
-                if (!value.equals(valueToRemove)) {
-                    newArray.put(value);
+        if (config.opt(arrayName) instanceof JSONStringSet) {
+            removeFromStringSet(arrayName, valueToRemove);
+            return;
+        }
+        update(arrayName, next -> {
+            JSONArray jsonArray = next.optJSONArray(arrayName);
+            if (jsonArray != null) {
+                JSONArray newArray = new JSONArray();
+                for (int i = 0; i < jsonArray.length(); i++) {
+                    String value = jsonArray.getString(i);
+                    if (!value.equals(valueToRemove)) {
+                        newArray.put(value);
+                    }
                 }
+                next.put(arrayName, newArray);
             }
-            config.put(arrayName, newArray);
+        });
+    }
+
+    /**
+     * Returns a read-only view of a string set, converting a plain string array stored under the name the
+     * first time. The view reflects later additions and removals without copying. Returns an empty set if
+     * nothing is stored under the name.
+     */
+    public Set<String> getStringSet(String setName) {
+        JSONStringSet set = stringSet(setName, false);
+        return set == null ? Set.of() : set.asSet();
+    }
+
+    public boolean stringSetContains(String setName, String value) {
+        JSONStringSet set = stringSet(setName, false);
+        return set != null && set.contains(value);
+    }
+
+    // Adds the value unless it is already present; returns whether it was added
+    public boolean addToStringSet(String setName, String value) {
+        boolean added = stringSet(setName, true).add(value);
+        if (added) {
+            changedInPlace(setName);
+        }
+        return added;
+    }
+
+    // Returns whether the value was present
+    public boolean removeFromStringSet(String setName, String value) {
+        JSONStringSet set = stringSet(setName, false);
+        boolean removed = set != null && set.remove(value);
+        if (removed) {
+            changedInPlace(setName);
+        }
+        return removed;
+    }
+
+    // Sets are changed in place rather than copied, so they are the one kind of value a published snapshot sees change
+    private JSONStringSet stringSet(String setName, boolean create) {
+        Object value = config.opt(setName);
+        if (value instanceof JSONStringSet) {
+            return (JSONStringSet) value;
+        }
+        if (!create && !(value instanceof JSONArray)) {
+            return null;
+        }
+        synchronized (writeLock) {
+            value = config.opt(setName);
+            if (value instanceof JSONStringSet) {
+                return (JSONStringSet) value;
+            }
+            // A one-off copy of an array loaded from the file; anything else is replaced, as the array methods do
+            JSONStringSet set = value instanceof JSONArray
+                    ? JSONStringSet.fromJSONArray((JSONArray) value) : new JSONStringSet();
+            JSONObject next = copyOf(config);
+            next.put(setName, set);
+            config = next;
+            return set;
+        }
+    }
+
+    private void changedInPlace(String key) {
+        synchronized (saveLock) {
+            // The snapshot object is unchanged but its content is not, so the next save must write
+            savedConfig = null;
+        }
+        if (autoSave) {
+            scheduleSave();
         }
+        fireChange(Set.of(key));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,210 @@
+package com.keqing.Utils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A size-bounded, thread-safe LRU cache whose entries expire a fixed time after they were loaded.
+ * Values are loaded through {@link #get(Object, Function)}; null results are never cached.
+ * Hit, miss, eviction and load-latency statistics are kept for monitoring.
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // Bumped on every invalidation so that loads racing with a write never cache the stale value
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    private final AtomicLong maxLoadNanos = new AtomicLong();
+
+    public LruCache(int maxSize, long ttlMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key, loading and caching it on a miss.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long startGeneration = generation.get();
+        long start = System.nanoTime();
+        V value = loader.apply(key);
+        recordLoad(System.nanoTime() - start);
+
+        if (value != null) {
+            store(Map.of(key, value), startGeneration);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached values for the keys, loading all misses with a single call to {@code loader}.
+     * Keys the loader has no value for are absent from the result.
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<? super Set<K>, ? extends Map<K, V>> loader) {
+        Map<K, V> result = new HashMap<>();
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            V cached = getIfPresent(key);
+            if (cached != null) {
+                result.put(key, cached);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long startGeneration = generation.get();
+        long start = System.nanoTime();
+        Map<K, V> loaded = loader.apply(missing);
+        recordLoad(System.nanoTime() - start);
+
+        store(loaded, startGeneration);
+        result.putAll(loaded);
+        return result;
+    }
+
+    private void recordLoad(long elapsedNanos) {
+        loadCount.incrementAndGet();
+        loadNanos.addAndGet(elapsedNanos);
+        maxLoadNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    private void store(Map<K, V> loaded, long startGeneration) {
+        synchronized (entries) {
+            if (generation.get() != startGeneration) {
+                return;
+            }
+            long expiresAt = System.nanoTime() + ttlNanos;
+            for (Map.Entry<K, V> entry : loaded.entrySet()) {
+                if (entry.getValue() != null) {
+                    entries.put(entry.getKey(), new Entry<>(entry.getValue(), expiresAt));
+                }
+            }
+        }
+    }
+
+    public V getIfPresent(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAtNanos < 0) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public long getExpirationCount() {
+        return expirations.get();
+    }
+
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    public double getAverageLoadMillis() {
+        long loads = loadCount.get();
+        return loads == 0 ? 0 : loadNanos.get() / 1_000_000.0 / loads;
+    }
+
+    public double getMaxLoadMillis() {
+        return maxLoadNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "LruCache[size=" + size() + "/" + maxSize
+                + ", hitRatio=" + String.format("%.3f", getHitRatio())
+                + ", evictions=" + getEvictionCount() + ", expirations=" + getExpirationCount()
+                + ", avgLoadMs=" + String.format("%.3f", getAverageLoadMillis()) + "]";
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAtNanos;
+
+        Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
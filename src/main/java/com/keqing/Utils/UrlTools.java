@@ -3,11 +3,19 @@ package com.keqing.Utils;
 public class UrlTools {
 
     public static String convertToJdbcUrl(String url) {
-        // Check if the input URL starts with "jdbc:mysql://", if not add the prefix
-        if (!url.startsWith("jdbc:mysql://")) {
+        // Bare host/database addresses are MySQL; any complete JDBC URL is used as given
+        if (!url.startsWith("jdbc:")) {
             url = "jdbc:mysql://" + url;
         }
         return url;
     }
 
+    public static String withParameter(String url, String name, String value) {
+        // Leave the URL alone if the caller already configured this parameter
+        if (url.contains("?" + name + "=") || url.contains("&" + name + "=")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + name + "=" + value;
+    }
+
 }
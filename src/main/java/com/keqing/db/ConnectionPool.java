@@ -0,0 +1,477 @@
+package com.keqing.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small bounded JDBC connection pool.
+ * Connections are opened lazily up to {@code maxSize}, validated when they are borrowed,
+ * and evicted after sitting idle for longer than {@code idleTimeoutMillis} (never below {@code minSize}).
+ * Callers get a handle whose {@code close()} returns the physical connection to the pool.
+ * Each physical connection keeps an LRU cache of up to {@code statementCacheSize} prepared statements,
+ * so repeated {@code prepareStatement(sql)} calls with the same SQL skip the prepare round trip.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    public static final int DEFAULT_MIN_SIZE = 2;
+    public static final int DEFAULT_MAX_SIZE = 10;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
+    // Connections used this recently are handed out again without a validation round trip
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String databaseUrl;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private int totalConnections;
+    private int waiters;
+    private boolean closed;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    private final ScheduledExecutorService housekeeper;
+
+    public ConnectionPool(String databaseUrl, String username, String password) {
+        this(databaseUrl, username, password, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE,
+                DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_BORROW_TIMEOUT_MILLIS);
+    }
+
+    public ConnectionPool(String databaseUrl, String username, String password, int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis) {
+        this(databaseUrl, username, password, minSize, maxSize, idleTimeoutMillis, borrowTimeoutMillis,
+                DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public ConnectionPool(String databaseUrl, String username, String password, int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis, int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.databaseUrl = databaseUrl;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        // The first run fills the pool up to minSize in the background
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout when the pool is exhausted.
+     * Closing the returned connection hands it back to the pool.
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean reserved = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        reserved = true;
+                        break;
+                    }
+                    if (remaining <= 0) {
+                        timeoutCount.incrementAndGet();
+                        throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis
+                                + " ms waiting for a pooled connection (active=" + totalConnections + ")");
+                    }
+                    waiters++;
+                    try {
+                        remaining = available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a pooled connection", e);
+                    } finally {
+                        waiters--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (reserved) {
+                try {
+                    candidate = open();
+                } catch (SQLException e) {
+                    discard(null);
+                    throw e;
+                }
+            } else if (!isUsable(candidate)) {
+                discard(candidate);
+                continue;
+            }
+
+            recordWait(System.nanoTime() - start);
+            return candidate.newHandle();
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(databaseUrl, username, password);
+        createdCount.incrementAndGet();
+        return new PooledConnection(connection);
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.nanoTime() - pooled.lastUsedNanos < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.incrementAndGet();
+        waitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void release(PooledConnection pooled) {
+        boolean reusable;
+        try {
+            Connection connection = pooled.connection;
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            reusable = !connection.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                pooled.lastUsedNanos = System.nanoTime();
+                idle.addFirst(pooled);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(pooled);
+    }
+
+    // Closes a physical connection (if any) and frees its slot
+    private void discard(PooledConnection pooled) {
+        if (pooled != null) {
+            pooled.closeQuietly();
+        }
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Evicts idle connections past the timeout and tops the pool up to minSize; package-private for tests
+    void housekeep() {
+        List<PooledConnection> expired = new ArrayList<>();
+        int missing;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+            // Oldest idle connections sit at the tail of the deque
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections - expired.size() > minSize) {
+                PooledConnection pooled = it.next();
+                if (pooled.lastUsedNanos - cutoff > 0) {
+                    break;
+                }
+                it.remove();
+                expired.add(pooled);
+            }
+            totalConnections -= expired.size();
+            missing = Math.max(0, minSize - totalConnections);
+            totalConnections += missing;
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledConnection pooled : expired) {
+            pooled.closeQuietly();
+            evictedCount.incrementAndGet();
+        }
+        for (int i = 0; i < missing; i++) {
+            try {
+                PooledConnection pooled = open();
+                pooled.lastUsedNanos = System.nanoTime();
+                lock.lock();
+                try {
+                    idle.addLast(pooled);
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException e) {
+                System.out.println("Connection pool could not open a connection: " + e.getMessage());
+                for (; i < missing; i++) {
+                    discard(null);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            totalConnections -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pooled : toClose) {
+            pooled.closeQuietly();
+        }
+    }
+
+    // Pool counters
+
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return totalConnections - idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaitingCount() {
+        lock.lock();
+        try {
+            return waiters;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+    }
+
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : waitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCounters.hits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCounters.misses.get();
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCounters.evictions.get();
+    }
+
+    public double getStatementCacheHitRatio() {
+        long hits = statementCounters.hits.get();
+        long total = hits + statementCounters.misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool[active=" + getActiveCount() + ", idle=" + getIdleCount()
+                + ", waiting=" + getWaitingCount() + ", borrows=" + getBorrowCount()
+                + ", avgWaitMs=" + String.format("%.3f", getAverageWaitMillis())
+                + ", timeouts=" + getTimeoutCount()
+                + ", stmtHitRatio=" + String.format("%.3f", getStatementCacheHitRatio()) + "]";
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private final class PooledConnection {
+        final Connection connection;
+        final StatementCache statementCache;
+        volatile long lastUsedNanos;
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.statementCache = statementCacheSize > 0
+                    ? new StatementCache(connection, statementCacheSize, statementCounters)
+                    : null;
+            this.lastUsedNanos = System.nanoTime();
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+
+        void closeQuietly() {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // The connection is being thrown away anyway
+            }
+        }
+    }
+
+    /**
+     * The caller's view of a pooled connection; close() returns it to the pool exactly once.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.connection + "]";
+                default:
+                    break;
+            }
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (pooled.statementCache != null && args != null && args.length == 1
+                    && method.getName().equals("prepareStatement")) {
+                return pooled.statementCache.prepare((String) args[0], (Connection) proxy);
+            }
+            try {
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
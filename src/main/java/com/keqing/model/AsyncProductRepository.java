@@ -0,0 +1,228 @@
+package com.keqing.model;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking facade over a {@link ProductStore}.
+ * Every call runs on its own virtual thread and returns a {@link CompletableFuture}, so independent queries
+ * can run in parallel. At most {@code maxConcurrency} calls touch the store at once; for a
+ * {@link ProductRepository} that is the connection pool's maximum size by default, so extra calls queue here
+ * instead of timing out in the pool. Closing this facade does not close the wrapped store.
+ */
+public class AsyncProductRepository implements AutoCloseable {
+
+    private final ProductStore repository;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    public AsyncProductRepository(ProductStore repository) {
+        this(repository, defaultConcurrency(repository));
+    }
+
+    public AsyncProductRepository(ProductStore repository, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be positive: " + maxConcurrency);
+        }
+        this.repository = repository;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    private static int defaultConcurrency(ProductStore repository) {
+        if (repository instanceof ProductRepository) {
+            return ((ProductRepository) repository).getConnectionPool().getMaxSize();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return call.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    private CompletableFuture<Void> run(Runnable call) {
+        return submit(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    // Number of calls waiting for a free slot
+    public int getQueuedCount() {
+        return permits.getQueueLength();
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    public CompletableFuture<Void> save(Product product) {
+        return run(() -> repository.save(product));
+    }
+
+    public CompletableFuture<Void> saveAll(List<Product> products) {
+        return run(() -> repository.saveAll(products));
+    }
+
+    public CompletableFuture<BulkInsertReport> saveAll(List<Product> products, int chunkSize) {
+        return submit(() -> repository.saveAll(products, chunkSize));
+    }
+
+    public CompletableFuture<List<Product>> findAll() {
+        return submit(repository::findAll);
+    }
+
+    public CompletableFuture<List<Product>> findAll(ProductProjection projection) {
+        return submit(() -> repository.findAll(projection));
+    }
+
+    public CompletableFuture<Product> findById(int id) {
+        return submit(() -> repository.findById(id));
+    }
+
+    public CompletableFuture<Void> update(Product product) {
+        return run(() -> repository.update(product));
+    }
+
+    public CompletableFuture<Void> delete(int id) {
+        return run(() -> repository.delete(id));
+    }
+
+    public CompletableFuture<List<Product>> findByCategory(int categoryId) {
+        return submit(() -> repository.findByCategory(categoryId));
+    }
+
+    public CompletableFuture<List<Product>> findByCategory(int categoryId, ProductProjection projection) {
+        return submit(() -> repository.findByCategory(categoryId, projection));
+    }
+
+    public CompletableFuture<List<Product>> findByAvailability(boolean isAvailable) {
+        return submit(() -> repository.findByAvailability(isAvailable));
+    }
+
+    public CompletableFuture<Integer> countProducts() {
+        return submit(repository::countProducts);
+    }
+
+    public CompletableFuture<List<Product>> findByPriceRange(double minPrice, double maxPrice) {
+        return submit(() -> repository.findByPriceRange(minPrice, maxPrice));
+    }
+
+    public CompletableFuture<List<Product>> search(String query, int limit) {
+        return submit(() -> repository.search(query, limit));
+    }
+
+    public CompletableFuture<List<Product>> searchByName(String name) {
+        return submit(() -> repository.searchByName(name));
+    }
+
+    public CompletableFuture<List<Product>> findRecent(int limit) {
+        return submit(() -> repository.findRecent(limit));
+    }
+
+    public CompletableFuture<List<Product>> findRecent(int limit, ProductProjection projection) {
+        return submit(() -> repository.findRecent(limit, projection));
+    }
+
+    public CompletableFuture<Page<Product>> findPage(ProductSortOrder order, String cursor, int pageSize) {
+        return submit(() -> repository.findPage(order, cursor, pageSize));
+    }
+
+    public CompletableFuture<Page<Product>> findPageByCategory(int categoryId, ProductSortOrder order,
+                                                               String cursor, int pageSize) {
+        return submit(() -> repository.findPageByCategory(categoryId, order, cursor, pageSize));
+    }
+
+    public CompletableFuture<List<Product>> findLowStock(int threshold) {
+        return submit(() -> repository.findLowStock(threshold));
+    }
+
+    public CompletableFuture<Void> updateStock(int productId, int newStockQuantity) {
+        return run(() -> repository.updateStock(productId, newStockQuantity));
+    }
+
+    public CompletableFuture<Boolean> reserveStock(int productId, int quantity) {
+        return submit(() -> repository.reserveStock(productId, quantity));
+    }
+
+    public CompletableFuture<Void> releaseStock(int productId, int quantity) {
+        return run(() -> repository.releaseStock(productId, quantity));
+    }
+
+    public CompletableFuture<Map<Integer, Integer>> countProductsByCategory() {
+        return submit(repository::countProductsByCategory);
+    }
+
+    public CompletableFuture<List<Product>> findByWeightRange(double minWeight, double maxWeight) {
+        return submit(() -> repository.findByWeightRange(minWeight, maxWeight));
+    }
+
+    public CompletableFuture<ProductDetail> getProductDetails(int productId) {
+        return submit(() -> repository.getProductDetails(productId));
+    }
+
+    public CompletableFuture<List<ProductDetail>> getProductDetails(Collection<Integer> productIds) {
+        return submit(() -> repository.getProductDetails(productIds));
+    }
+
+    public CompletableFuture<ProductDetail> getProductDetails(int productId, int reviewPageSize) {
+        return submit(() -> repository.getProductDetails(productId, reviewPageSize));
+    }
+
+    public CompletableFuture<RatingSummary> getRatingSummary(int productId) {
+        return submit(() -> repository.getRatingSummary(productId));
+    }
+
+    public CompletableFuture<Page<Review>> findReviews(int productId, String cursor, int pageSize) {
+        return submit(() -> repository.findReviews(productId, cursor, pageSize));
+    }
+
+    public CompletableFuture<Void> addReview(int productId, int star, String description) {
+        return run(() -> repository.addReview(productId, star, description));
+    }
+
+    public CompletableFuture<Void> addProductToFeatured(int productId, Timestamp fromDate, Timestamp toDate) {
+        return run(() -> repository.addProductToFeatured(productId, fromDate, toDate));
+    }
+
+    public CompletableFuture<Void> removeProductFromFeatured(int productId) {
+        return run(() -> repository.removeProductFromFeatured(productId));
+    }
+
+    public CompletableFuture<List<Product>> findFeatured(Instant at) {
+        return submit(() -> repository.findFeatured(at));
+    }
+
+    public CompletableFuture<Void> createCategory(String name, String description) {
+        return run(() -> repository.createCategory(name, description));
+    }
+
+    public CompletableFuture<Void> deleteCategory(int categoryId) {
+        return run(() -> repository.deleteCategory(categoryId));
+    }
+}
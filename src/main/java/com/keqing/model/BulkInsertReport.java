@@ -0,0 +1,115 @@
+package com.keqing.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a chunked {@link ProductRepository#saveAll(List, int)}.
+ * Every chunk is committed or rolled back on its own, so a failed chunk does not undo earlier ones.
+ * Chunks that were never attempted, e.g. because the connection failed, are reported as failed too.
+ */
+public class BulkInsertReport {
+
+    private final int rowCount;
+    private final List<ChunkResult> chunks = new ArrayList<>();
+    private long elapsedNanos;
+
+    BulkInsertReport(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    void addChunk(ChunkResult chunk) {
+        chunks.add(chunk);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public List<ChunkResult> getChunks() {
+        return Collections.unmodifiableList(chunks);
+    }
+
+    // Number of products handed to saveAll
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getInsertedCount() {
+        int inserted = 0;
+        for (ChunkResult chunk : chunks) {
+            if (chunk.isSuccessful()) {
+                inserted += chunk.getRowCount();
+            }
+        }
+        return inserted;
+    }
+
+    public int getFailedCount() {
+        int failed = 0;
+        for (ChunkResult chunk : chunks) {
+            if (!chunk.isSuccessful()) {
+                failed += chunk.getRowCount();
+            }
+        }
+        return failed;
+    }
+
+    // True only if every product was inserted
+    public boolean isSuccessful() {
+        return getFailedCount() == 0 && getInsertedCount() == rowCount;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : getInsertedCount() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkInsertReport[chunks=" + chunks.size() + ", inserted=" + getInsertedCount()
+                + ", failed=" + getFailedCount() + ", elapsedMs=" + String.format("%.1f", getElapsedMillis())
+                + ", rowsPerSecond=" + String.format("%.0f", getRowsPerSecond()) + "]";
+    }
+
+    /**
+     * Timing and outcome of a single chunk; {@link #getError()} is null when the chunk was committed.
+     */
+    public static class ChunkResult {
+        private final int index;
+        private final int rowCount;
+        private final long elapsedNanos;
+        private final String error;
+
+        ChunkResult(int index, int rowCount, long elapsedNanos, String error) {
+            this.index = index;
+            this.rowCount = rowCount;
+            this.elapsedNanos = elapsedNanos;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public double getElapsedMillis() {
+            return elapsedNanos / 1_000_000.0;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+    }
+}
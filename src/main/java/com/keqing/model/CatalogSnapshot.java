@@ -0,0 +1,404 @@
+package com.keqing.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar in-memory copy of the {@code products} table for range and filter queries.
+ * Price, weight, stock and category live in primitive arrays indexed by slot, availability in a bitset,
+ * and price and weight additionally in slot arrays sorted by value. Range lookups are a binary search over
+ * the sorted slots; filters are combined as bitsets of slots and only turned into products at the end.
+ * The snapshot is kept current incrementally through the repository's writes.
+ */
+public class CatalogSnapshot implements ProductChangeListener {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int capacity;
+    private int slotCount;
+    private double[] prices;
+    private double[] weights;
+    private int[] stocks;
+    private int[] categories;
+    private Product[] rows;
+    private final BitSet live = new BitSet();
+    private final BitSet available = new BitSet();
+    private final Map<Integer, BitSet> slotsByCategory = new HashMap<>();
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+
+    // Live slots ordered by (value, slot)
+    private int[] byPrice;
+    private int[] byWeight;
+    private int liveCount;
+
+    public CatalogSnapshot() {
+        allocate(16);
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        prices = new double[newCapacity];
+        weights = new double[newCapacity];
+        stocks = new int[newCapacity];
+        categories = new int[newCapacity];
+        rows = new Product[newCapacity];
+        byPrice = new int[newCapacity];
+        byWeight = new int[newCapacity];
+    }
+
+    /**
+     * Replaces the whole snapshot with the given products.
+     */
+    public void load(List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            allocate(Math.max(16, products.size()));
+            slotCount = 0;
+            liveCount = 0;
+            freeCount = 0;
+            live.clear();
+            available.clear();
+            slotsByCategory.clear();
+            slotById.clear();
+            for (Product product : products) {
+                int slot = slotCount++;
+                write(slot, product);
+                slotById.put(product.getId(), slot);
+            }
+            liveCount = slotCount;
+            byPrice = sortedSlots(prices);
+            byWeight = sortedSlots(weights);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int[] sortedSlots(double[] values) {
+        int[] sorted = IntStream.range(0, slotCount).boxed()
+                .sorted((a, b) -> compare(values, a, values[b], b))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return Arrays.copyOf(sorted, capacity);
+    }
+
+    private void write(int slot, Product product) {
+        prices[slot] = product.getPrice();
+        weights[slot] = product.getWeight();
+        stocks[slot] = product.getStockQuantity();
+        categories[slot] = product.getCategoryId();
+        rows[slot] = new Product(product.getId(), product.getName(), product.getDescription(),
+                product.getCategoryId(), product.getPrice(), product.getStockQuantity(), product.getWeight(),
+                product.getImageUrl(), product.getCreatedAt(), product.isAvailable());
+        live.set(slot);
+        available.set(slot, product.isAvailable());
+        slotsByCategory.computeIfAbsent(product.getCategoryId(), c -> new BitSet()).set(slot);
+    }
+
+    // Incremental maintenance
+
+    public void upsert(Product product) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotById.get(product.getId());
+            if (existing != null) {
+                int slot = existing;
+                removeSorted(byPrice, prices, slot);
+                removeSorted(byWeight, weights, slot);
+                slotsByCategory.get(categories[slot]).clear(slot);
+                liveCount--;
+                write(slot, product);
+                insertSorted(byPrice, prices, slot);
+                insertSorted(byWeight, weights, slot);
+                liveCount++;
+                return;
+            }
+
+            int slot;
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                if (slotCount == capacity) {
+                    grow();
+                }
+                slot = slotCount++;
+            }
+            write(slot, product);
+            slotById.put(product.getId(), slot);
+            insertSorted(byPrice, prices, slot);
+            insertSorted(byWeight, weights, slot);
+            liveCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotById.remove(productId);
+            if (existing == null) {
+                return;
+            }
+            int slot = existing;
+            removeSorted(byPrice, prices, slot);
+            removeSorted(byWeight, weights, slot);
+            liveCount--;
+            live.clear(slot);
+            available.clear(slot);
+            slotsByCategory.get(categories[slot]).clear(slot);
+            rows[slot] = null;
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void grow() {
+        int newCapacity = capacity * 2;
+        prices = Arrays.copyOf(prices, newCapacity);
+        weights = Arrays.copyOf(weights, newCapacity);
+        stocks = Arrays.copyOf(stocks, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        rows = Arrays.copyOf(rows, newCapacity);
+        byPrice = Arrays.copyOf(byPrice, newCapacity);
+        byWeight = Arrays.copyOf(byWeight, newCapacity);
+        capacity = newCapacity;
+    }
+
+    // Moves the tail of the sorted array one place down over the slot's position
+    private void removeSorted(int[] sorted, double[] values, int slot) {
+        int position = position(sorted, values, values[slot], slot);
+        System.arraycopy(sorted, position + 1, sorted, position, liveCount - position - 1);
+    }
+
+    // Call with liveCount still excluding the slot being inserted
+    private void insertSorted(int[] sorted, double[] values, int slot) {
+        int position = position(sorted, values, values[slot], slot);
+        System.arraycopy(sorted, position, sorted, position + 1, liveCount - position);
+        sorted[position] = slot;
+    }
+
+    // First position in the sorted array whose (value, slot) is not less than the given one
+    private int position(int[] sorted, double[] values, double value, int slot) {
+        int low = 0;
+        int high = liveCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(values, sorted[mid], value, slot) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compare(double[] values, int slot, double value, int otherSlot) {
+        int byValue = Double.compare(values[slot], value);
+        return byValue != 0 ? byValue : Integer.compare(slot, otherSlot);
+    }
+
+    // First position in the sorted array whose value is >= value (or > value when exclusive)
+    private int bound(int[] sorted, double[] values, double value, boolean exclusive) {
+        int low = 0;
+        int high = liveCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            double current = values[sorted[mid]];
+            if (current < value || (exclusive && current == value)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Runs a query under the snapshot's read lock. Slot selections are only meaningful while the lock is held,
+     * since a slot freed by a delete is reused by the next save; select, combine and materialize them inside
+     * one call, e.g. {@code read(() -> toProducts(selectPriceRange(0, 10)))}.
+     */
+    public <T> T read(Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Slot selections. Combine them with BitSet.and/or and materialize with toProducts, all within read.
+
+    public BitSet selectPriceRange(double minPrice, double maxPrice) {
+        return selectRange(byPrice, prices, minPrice, maxPrice);
+    }
+
+    public BitSet selectWeightRange(double minWeight, double maxWeight) {
+        return selectRange(byWeight, weights, minWeight, maxWeight);
+    }
+
+    private BitSet selectRange(int[] sorted, double[] values, double min, double max) {
+        lock.readLock().lock();
+        try {
+            BitSet slots = new BitSet(slotCount);
+            int to = bound(sorted, values, max, true);
+            for (int i = bound(sorted, values, min, false); i < to; i++) {
+                slots.set(sorted[i]);
+            }
+            return slots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BitSet selectLowStock(int threshold) {
+        lock.readLock().lock();
+        try {
+            BitSet slots = new BitSet(slotCount);
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                if (stocks[slot] < threshold) {
+                    slots.set(slot);
+                }
+            }
+            return slots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BitSet selectAvailability(boolean isAvailable) {
+        lock.readLock().lock();
+        try {
+            BitSet slots = (BitSet) live.clone();
+            if (isAvailable) {
+                slots.and(available);
+            } else {
+                slots.andNot(available);
+            }
+            return slots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BitSet selectCategory(int categoryId) {
+        lock.readLock().lock();
+        try {
+            BitSet slots = slotsByCategory.get(categoryId);
+            return slots == null ? new BitSet() : (BitSet) slots.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Turns a slot selection into products. Products are shared with the snapshot and must be treated as read-only;
+     * the snapshot itself replaces rather than changes a product once it has been handed out.
+     */
+    public List<Product> toProducts(BitSet slots) {
+        lock.readLock().lock();
+        try {
+            List<Product> products = new ArrayList<>(slots.cardinality());
+            for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                Product product = rows[slot];
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same results as the corresponding ProductRepository finders, without a database round trip
+
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        return read(() -> toProducts(selectPriceRange(minPrice, maxPrice)));
+    }
+
+    public List<Product> findByWeightRange(double minWeight, double maxWeight) {
+        return read(() -> toProducts(selectWeightRange(minWeight, maxWeight)));
+    }
+
+    public List<Product> findLowStock(int threshold) {
+        return read(() -> toProducts(selectLowStock(threshold)));
+    }
+
+    public List<Product> findByAvailability(boolean isAvailable) {
+        return read(() -> toProducts(selectAvailability(isAvailable)));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        upsert(product);
+    }
+
+    @Override
+    public void productUpdated(Product product) {
+        upsert(product);
+    }
+
+    @Override
+    public void stockUpdated(int productId, int newStockQuantity) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(productId);
+            if (slot != null) {
+                stocks[slot] = newStockQuantity;
+                rows[slot] = withStock(rows[slot], newStockQuantity);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void stockAdjusted(int productId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(productId);
+            if (slot != null) {
+                stocks[slot] += delta;
+                rows[slot] = withStock(rows[slot], stocks[slot]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        remove(productId);
+    }
+
+    // Callers may hold the old instance without the lock, so it is replaced rather than changed
+    private static Product withStock(Product product, int stockQuantity) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getCategoryId(),
+                product.getPrice(), stockQuantity, product.getWeight(), product.getImageUrl(),
+                product.getCreatedAt(), product.isAvailable());
+    }
+}
@@ -0,0 +1,193 @@
+package com.keqing.model;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes product rows straight into a channel as CSV or JSON lines.
+ * Each row is formatted into one reused character buffer and encoded into one reused byte buffer, which is
+ * written out whenever it fills, so the output never exists in memory as a whole. The column names match
+ * {@link ImportFormat}, so an uncompressed export can be imported again by {@link ProductImporter}; id and
+ * created_at are written as well and are ignored on import. CSV fields holding line breaks are quoted and
+ * import intact, except that a carriage return comes back as a line feed.
+ */
+final class CatalogWriter {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER =
+            "id,name,description,category,price,stock_quantity,weight,image_url,created_at,is_available\n";
+
+    private final ImportFormat format;
+    private final CountingChannel target;
+    private final GZIPOutputStream gzip;
+    private final WritableByteChannel out;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder row = new StringBuilder(512);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long rowCount;
+
+    CatalogWriter(WritableByteChannel channel, ImportFormat format, boolean compress) throws IOException {
+        this.format = format;
+        this.target = new CountingChannel(channel);
+        if (compress) {
+            gzip = new GZIPOutputStream(Channels.newOutputStream(target), BUFFER_SIZE);
+            out = Channels.newChannel(gzip);
+        } else {
+            gzip = null;
+            out = target;
+        }
+        if (format == ImportFormat.CSV) {
+            row.append(CSV_HEADER);
+            encodeRow();
+        }
+    }
+
+    void write(int id, String name, String description, int categoryId, double price, int stockQuantity,
+               double weight, String imageUrl, Date createdAt, boolean isAvailable) throws IOException {
+        if (format == ImportFormat.CSV) {
+            row.append(id).append(',');
+            csv(name).append(',');
+            csv(description).append(',');
+            row.append(categoryId).append(',')
+                    .append(price).append(',')
+                    .append(stockQuantity).append(',')
+                    .append(weight).append(',');
+            csv(imageUrl).append(',');
+            csv(createdAt == null ? null : timestamp(createdAt)).append(',')
+                    .append(isAvailable).append('\n');
+        } else {
+            row.append("{\"id\":").append(id)
+                    .append(",\"name\":").append(json(name))
+                    .append(",\"description\":").append(json(description))
+                    .append(",\"category\":").append(categoryId)
+                    .append(",\"price\":").append(price)
+                    .append(",\"stock_quantity\":").append(stockQuantity)
+                    .append(",\"weight\":").append(weight)
+                    .append(",\"image_url\":").append(json(imageUrl))
+                    .append(",\"created_at\":").append(createdAt == null ? "null" : json(timestamp(createdAt)))
+                    .append(",\"is_available\":").append(isAvailable)
+                    .append("}\n");
+        }
+        encodeRow();
+        rowCount++;
+    }
+
+    void write(Product product) throws IOException {
+        write(product.getId(), product.getName(), product.getDescription(), product.getCategoryId(),
+                product.getPrice(), product.getStockQuantity(), product.getWeight(), product.getImageUrl(),
+                product.getCreatedAt(), product.isAvailable());
+    }
+
+    /**
+     * Writes out what is buffered and ends the gzip stream, leaving the channel itself open.
+     */
+    void finish() throws IOException {
+        drain();
+        if (gzip != null) {
+            gzip.finish();
+            gzip.flush();
+        }
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    // Bytes that reached the channel, after compression
+    long getBytesWritten() {
+        return target.count;
+    }
+
+    private void encodeRow() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(row);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        encoder.reset();
+        row.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private StringBuilder csv(String value) {
+        if (value == null) {
+            return row;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return row.append(value);
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        return row.append('"');
+    }
+
+    private static String json(String value) {
+        return value == null ? "null" : JSONObject.quote(value);
+    }
+
+    private static String timestamp(Date date) {
+        return (date instanceof Timestamp ? (Timestamp) date : new Timestamp(date.getTime())).toString();
+    }
+
+    private static final class CountingChannel implements WritableByteChannel {
+        private final WritableByteChannel channel;
+        long count;
+
+        CountingChannel(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int written = channel.write(src);
+            count += written;
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // The channel belongs to the caller
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.keqing.model;
+
+/**
+ * Outcome of a catalog export; bytes are counted as they reached the channel, so after compression.
+ */
+public class ExportReport {
+
+    private final long rowCount;
+    private final long bytesWritten;
+    private final long elapsedNanos;
+
+    ExportReport(long rowCount, long bytesWritten, long elapsedNanos) {
+        this.rowCount = rowCount;
+        this.bytesWritten = bytesWritten;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowCount * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytesWritten * 1_000_000_000.0 / elapsedNanos / (1024 * 1024);
+    }
+
+    @Override
+    public String toString() {
+        return "ExportReport[rows=" + rowCount + ", bytes=" + bytesWritten
+                + ", elapsedMs=" + String.format("%.1f", getElapsedMillis())
+                + ", rowsPerSecond=" + String.format("%.0f", getRowsPerSecond())
+                + ", mbPerSecond=" + String.format("%.1f", getMegabytesPerSecond()) + "]";
+    }
+}
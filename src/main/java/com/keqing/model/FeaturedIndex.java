@@ -0,0 +1,337 @@
+package com.keqing.model;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * In-memory interval index over the featured windows in {@code featured_product}.
+ * The timeline is cut at every window boundary and the featured products of each piece are precomputed, so
+ * {@link #findFeatured(Instant)} is a binary search and {@link #getCurrent()} a single volatile read. A timer
+ * moves the current list on exactly when a window opens or closes. Windows include their start and exclude
+ * their end; a missing start or end leaves the window open on that side.
+ * Windows that have ended are dropped whenever the index is rebuilt or the timer fires, together with products
+ * left without a window, so the index only answers for instants from {@link #getPrunedUntil()} on.
+ * Returned products are shared between callers and must be treated as read-only.
+ */
+public class FeaturedIndex implements ProductChangeListener, AutoCloseable {
+
+    // Shared by all indexes; only moves the current list on at window boundaries
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "featured-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Every change reschedules, and boundaries can be months away; don't keep the cancelled timers around
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private final Clock clock;
+    private final IntFunction<Product> productLoader;
+
+    // Guarded by this
+    private final List<Window> windows = new ArrayList<>();
+    private final Map<Integer, Product> products = new HashMap<>();
+    private ScheduledFuture<?> nextBoundary;
+    private boolean closed;
+    // Windows ending at or before this instant have been dropped
+    private volatile Instant prunedUntil = Instant.MIN;
+
+    private volatile Timeline timeline = Timeline.EMPTY;
+    private volatile List<Product> current = List.of();
+
+    /**
+     * @param productLoader loads a product that becomes featured after {@link #load} and is not yet known
+     */
+    public FeaturedIndex(Clock clock, IntFunction<Product> productLoader) {
+        this.clock = clock;
+        this.productLoader = productLoader;
+    }
+
+    /**
+     * Replaces every window and product with the given ones.
+     * Windows whose product is not among {@code featuredProducts} are dropped.
+     */
+    public synchronized void load(Collection<Window> featuredWindows, Collection<Product> featuredProducts) {
+        windows.clear();
+        products.clear();
+        for (Product product : featuredProducts) {
+            products.put(product.getId(), product);
+        }
+        for (Window window : featuredWindows) {
+            if (products.containsKey(window.productId)) {
+                windows.add(window);
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * Products featured at the given instant, ordered by id.
+     */
+    public List<Product> findFeatured(Instant at) {
+        return timeline.at(at);
+    }
+
+    /**
+     * Products featured right now, ordered by id. Never touches a lock.
+     */
+    public List<Product> getCurrent() {
+        return current;
+    }
+
+    public synchronized int getWindowCount() {
+        return windows.size();
+    }
+
+    /**
+     * Instant before which windows may already have been dropped; {@link #findFeatured} is only exact for
+     * instants from here on.
+     */
+    public Instant getPrunedUntil() {
+        return prunedUntil;
+    }
+
+    // Callers hold the monitor
+    private void rebuild() {
+        pruneExpired();
+        timeline = Timeline.of(windows, products);
+        publish();
+    }
+
+    // Runs on the timer at each window boundary
+    private synchronized void advance() {
+        if (pruneExpired()) {
+            timeline = Timeline.of(windows, products);
+        }
+        publish();
+    }
+
+    // Drops windows that have ended and products no longer featured by any window; callers hold the monitor
+    private boolean pruneExpired() {
+        Instant now = clock.instant();
+        if (!windows.removeIf(window -> window.to != null && !window.to.isAfter(now))) {
+            return false;
+        }
+        Set<Integer> featuredIds = new HashSet<>();
+        for (Window window : windows) {
+            featuredIds.add(window.productId);
+        }
+        products.keySet().retainAll(featuredIds);
+        prunedUntil = now;
+        return true;
+    }
+
+    // Publishes the current list and schedules the next boundary; callers hold the monitor
+    private void publish() {
+        if (nextBoundary != null) {
+            nextBoundary.cancel(false);
+            nextBoundary = null;
+        }
+        if (closed) {
+            return;
+        }
+        Instant now = clock.instant();
+        Timeline published = timeline;
+        current = published.at(now);
+        Instant next = published.nextBoundaryAfter(now);
+        if (next != null) {
+            long delayNanos = Math.max(1, Duration.between(now, next).toNanos());
+            nextBoundary = TIMER.schedule(this::advance, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (nextBoundary != null) {
+            nextBoundary.cancel(false);
+            nextBoundary = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FeaturedIndex[windows=" + getWindowCount() + ", current=" + current.size() + "]";
+    }
+
+    @Override
+    public void featuredAdded(int productId, Timestamp fromDate, Timestamp toDate) {
+        Product product;
+        synchronized (this) {
+            product = products.get(productId);
+        }
+        // Load outside the monitor; the loader may go to the database
+        if (product == null) {
+            product = productLoader.apply(productId);
+            if (product == null) {
+                return;
+            }
+        }
+        synchronized (this) {
+            products.putIfAbsent(productId, product);
+            windows.add(new Window(productId, fromDate, toDate));
+            rebuild();
+        }
+    }
+
+    @Override
+    public synchronized void featuredRemoved(int productId) {
+        if (windows.removeIf(window -> window.productId == productId)) {
+            products.remove(productId);
+            rebuild();
+        }
+    }
+
+    @Override
+    public synchronized void productUpdated(Product product) {
+        if (products.containsKey(product.getId())) {
+            products.put(product.getId(), copy(product, product.getStockQuantity()));
+            rebuild();
+        }
+    }
+
+    @Override
+    public synchronized void stockUpdated(int productId, int newStockQuantity) {
+        Product product = products.get(productId);
+        if (product != null) {
+            // Published products are shared with readers, so replace rather than modify
+            products.put(productId, copy(product, newStockQuantity));
+            rebuild();
+        }
+    }
+
+    @Override
+    public synchronized void stockAdjusted(int productId, int delta) {
+        Product product = products.get(productId);
+        if (product != null) {
+            products.put(productId, copy(product, product.getStockQuantity() + delta));
+            rebuild();
+        }
+    }
+
+    private static Product copy(Product product, int stockQuantity) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getCategoryId(),
+                product.getPrice(), stockQuantity, product.getWeight(), product.getImageUrl(),
+                product.getCreatedAt(), product.isAvailable());
+    }
+
+    @Override
+    public synchronized void productDeleted(int productId) {
+        featuredRemoved(productId);
+    }
+
+    /**
+     * One row of {@code featured_product}.
+     */
+    public static final class Window {
+        private final int productId;
+        private final Instant from;
+        private final Instant to;
+
+        public Window(int productId, Timestamp fromDate, Timestamp toDate) {
+            this.productId = productId;
+            this.from = fromDate == null ? null : fromDate.toInstant();
+            this.to = toDate == null ? null : toDate.toInstant();
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+    }
+
+    // Immutable; the featured products of each piece of the timeline between consecutive boundaries
+    private static final class Timeline {
+
+        static final Timeline EMPTY = new Timeline(new Instant[0], List.of(List.of()));
+
+        // Sorted; piece i covers [boundaries[i - 1], boundaries[i])
+        private final Instant[] boundaries;
+        private final List<List<Product>> pieces;
+
+        private Timeline(Instant[] boundaries, List<List<Product>> pieces) {
+            this.boundaries = boundaries;
+            this.pieces = pieces;
+        }
+
+        static Timeline of(List<Window> windows, Map<Integer, Product> products) {
+            // Sweep the boundaries in order, keeping a count of open windows per product
+            NavigableMap<Instant, List<Window>> opening = new TreeMap<>();
+            NavigableMap<Instant, List<Window>> closing = new TreeMap<>();
+            NavigableMap<Integer, Integer> open = new TreeMap<>();
+            for (Window window : windows) {
+                if (window.from != null && window.to != null && !window.from.isBefore(window.to)) {
+                    continue;  // Empty window
+                }
+                if (window.from == null) {
+                    open.merge(window.productId, 1, Integer::sum);
+                } else {
+                    opening.computeIfAbsent(window.from, instant -> new ArrayList<>()).add(window);
+                }
+                if (window.to != null) {
+                    closing.computeIfAbsent(window.to, instant -> new ArrayList<>()).add(window);
+                }
+            }
+
+            NavigableSet<Instant> all = new TreeSet<>(opening.keySet());
+            all.addAll(closing.keySet());
+            Instant[] boundaries = all.toArray(new Instant[0]);
+
+            List<List<Product>> pieces = new ArrayList<>(boundaries.length + 1);
+            pieces.add(snapshot(open, products));
+            for (Instant boundary : boundaries) {
+                for (Window window : closing.getOrDefault(boundary, List.of())) {
+                    open.computeIfPresent(window.productId, (id, count) -> count == 1 ? null : count - 1);
+                }
+                for (Window window : opening.getOrDefault(boundary, List.of())) {
+                    open.merge(window.productId, 1, Integer::sum);
+                }
+                pieces.add(snapshot(open, products));
+            }
+            return new Timeline(boundaries, pieces);
+        }
+
+        private static List<Product> snapshot(NavigableMap<Integer, Integer> open, Map<Integer, Product> products) {
+            List<Product> featured = new ArrayList<>(open.size());
+            for (int productId : open.keySet()) {
+                Product product = products.get(productId);
+                if (product != null) {
+                    featured.add(product);
+                }
+            }
+            return Collections.unmodifiableList(featured);
+        }
+
+        List<Product> at(Instant instant) {
+            int index = Arrays.binarySearch(boundaries, instant);
+            // A boundary itself belongs to the piece it starts
+            return pieces.get(index >= 0 ? index + 1 : -index - 1);
+        }
+
+        Instant nextBoundaryAfter(Instant instant) {
+            int index = Arrays.binarySearch(boundaries, instant);
+            int next = index >= 0 ? index + 1 : -index - 1;
+            return next < boundaries.length ? boundaries[next] : null;
+        }
+    }
+}
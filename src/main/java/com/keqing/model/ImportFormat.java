@@ -0,0 +1,18 @@
+package com.keqing.model;
+
+/**
+ * File formats understood by {@link ProductImporter} and written by {@link ProductStore#exportCatalog}.
+ * Both use the {@code products} column names: name, description, category, price, stock_quantity, weight,
+ * image_url and is_available.
+ */
+public enum ImportFormat {
+    /**
+     * Comma-separated values with a header row naming the columns. Fields may be quoted with double quotes,
+     * with {@code ""} for a literal quote, but a record must fit on one line.
+     */
+    CSV,
+    /**
+     * One JSON object per line.
+     */
+    JSON_LINES
+}
@@ -0,0 +1,95 @@
+package com.keqing.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcome of a {@link ProductImporter} run.
+ * Rejected rows failed to parse or validate and were never written; failed rows were valid but their chunk
+ * could not be inserted. Only the first {@value #MAX_REJECT_SAMPLES} rejects are kept with their reasons.
+ */
+public class ImportReport {
+
+    public static final int MAX_REJECT_SAMPLES = 100;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final List<String> rejectSamples = new ArrayList<>();
+    private volatile long elapsedNanos;
+
+    void rowsRead(int count) {
+        rowsRead.addAndGet(count);
+    }
+
+    void reject(long lineNumber, String reason) {
+        rejected.incrementAndGet();
+        synchronized (rejectSamples) {
+            if (rejectSamples.size() < MAX_REJECT_SAMPLES) {
+                rejectSamples.add("line " + lineNumber + ": " + reason);
+            }
+        }
+    }
+
+    void chunkWritten(int insertedCount, int failedCount) {
+        chunks.incrementAndGet();
+        imported.addAndGet(insertedCount);
+        failed.addAndGet(failedCount);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getImportedCount() {
+        return imported.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getChunkCount() {
+        return chunks.get();
+    }
+
+    // "line <n>: <reason>" for the first rejects
+    public List<String> getRejects() {
+        synchronized (rejectSamples) {
+            return Collections.unmodifiableList(new ArrayList<>(rejectSamples));
+        }
+    }
+
+    public boolean isSuccessful() {
+        return getRejectedCount() == 0 && getFailedCount() == 0;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    public double getRowsPerSecond() {
+        long nanos = elapsedNanos;
+        return nanos == 0 ? 0 : getImportedCount() * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport[read=" + getRowsRead() + ", imported=" + getImportedCount()
+                + ", rejected=" + getRejectedCount() + ", failed=" + getFailedCount()
+                + ", chunks=" + getChunkCount() + ", elapsedMs=" + String.format("%.1f", getElapsedMillis())
+                + ", rowsPerSecond=" + String.format("%.0f", getRowsPerSecond()) + "]";
+    }
+}
@@ -0,0 +1,769 @@
+package com.keqing.model;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A {@link ProductStore} held entirely in the process, for edge nodes and tests that should not depend on
+ * a database server. Products are kept in id order, indexed by category and availability in hash indexes, and
+ * by price, weight, stock and creation time in sorted indexes, so lookups, range queries and pages never scan
+ * the whole catalog. Category pages read sorted indexes of their own category.
+ * Every product handed in or out is copied, so callers can modify what they get without affecting the store.
+ * Nothing is persisted; the catalog is lost when the process ends.
+ */
+public class InMemoryProductStore implements ProductStore {
+
+    private static final Comparator<Product> BY_PRICE =
+            Comparator.comparingDouble(Product::getPrice).thenComparingInt(Product::getId);
+    private static final Comparator<Product> BY_WEIGHT =
+            Comparator.comparingDouble(Product::getWeight).thenComparingInt(Product::getId);
+    private static final Comparator<Product> BY_STOCK =
+            Comparator.comparingInt(Product::getStockQuantity).thenComparingInt(Product::getId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ProductChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    private final NavigableMap<Integer, Product> products = new TreeMap<>();
+    private final Map<Integer, NavigableSet<Integer>> idsByCategory = new HashMap<>();
+    private final Map<Boolean, NavigableSet<Integer>> idsByAvailability = new HashMap<>();
+    private final NavigableSet<Product> byPrice = new TreeSet<>(BY_PRICE);
+    private final NavigableSet<Product> byWeight = new TreeSet<>(BY_WEIGHT);
+    private final NavigableSet<Product> byStock = new TreeSet<>(BY_STOCK);
+    private final NavigableSet<Product> newestFirst = new TreeSet<>(ProductSortOrder.NEWEST_FIRST.getComparator());
+    // The page orders again per category, so a page of a small category does not walk the whole catalog
+    private final Map<Integer, NavigableSet<Product>> byPriceInCategory = new HashMap<>();
+    private final Map<Integer, NavigableSet<Product>> newestFirstInCategory = new HashMap<>();
+
+    private final Map<Integer, Category> categories = new HashMap<>();
+    // Each product's reviews in id order, with their summary kept alongside
+    private final Map<Integer, List<Review>> reviewsByProduct = new HashMap<>();
+    private final Map<Integer, RatingSummary> ratingsByProduct = new HashMap<>();
+    private final FeaturedIndex featured;
+
+    private int nextProductId = 1;
+    private int nextCategoryId = 1;
+    private int nextReviewId = 1;
+
+    public InMemoryProductStore() {
+        // The featured index follows the store's own change events, like any other listener
+        featured = new FeaturedIndex(Clock.systemUTC(), this::findById);
+        changeListeners.add(featured);
+    }
+
+    @Override
+    public void addChangeListener(ProductChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ProductChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void fireChange(Consumer<ProductChangeListener> event) {
+        for (ProductChangeListener listener : changeListeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                System.out.println("Product change listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // Index maintenance; callers hold the write lock
+
+    private void index(Product product) {
+        products.put(product.getId(), product);
+        idsByCategory.computeIfAbsent(product.getCategoryId(), c -> new TreeSet<>()).add(product.getId());
+        idsByAvailability.computeIfAbsent(product.isAvailable(), a -> new TreeSet<>()).add(product.getId());
+        byPrice.add(product);
+        byWeight.add(product);
+        byStock.add(product);
+        newestFirst.add(product);
+        byPriceInCategory.computeIfAbsent(product.getCategoryId(), c -> new TreeSet<>(BY_PRICE)).add(product);
+        newestFirstInCategory.computeIfAbsent(product.getCategoryId(),
+                c -> new TreeSet<>(ProductSortOrder.NEWEST_FIRST.getComparator())).add(product);
+    }
+
+    private Product unindex(int id) {
+        Product product = products.remove(id);
+        if (product == null) {
+            return null;
+        }
+        NavigableSet<Integer> categoryIds = idsByCategory.get(product.getCategoryId());
+        categoryIds.remove(id);
+        if (categoryIds.isEmpty()) {
+            idsByCategory.remove(product.getCategoryId());
+            byPriceInCategory.remove(product.getCategoryId());
+            newestFirstInCategory.remove(product.getCategoryId());
+        } else {
+            byPriceInCategory.get(product.getCategoryId()).remove(product);
+            newestFirstInCategory.get(product.getCategoryId()).remove(product);
+        }
+        idsByAvailability.get(product.isAvailable()).remove(id);
+        byPrice.remove(product);
+        byWeight.remove(product);
+        byStock.remove(product);
+        newestFirst.remove(product);
+        return product;
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getCategoryId(),
+                product.getPrice(), product.getStockQuantity(), product.getWeight(), product.getImageUrl(),
+                product.getCreatedAt(), product.isAvailable());
+    }
+
+    private static Product copy(Product product, ProductProjection projection) {
+        Product copy = copy(product);
+        if (projection == ProductProjection.LISTING) {
+            copy.setDescription(null);
+        }
+        return copy;
+    }
+
+    // Products
+
+    @Override
+    public void save(Product product) {
+        lock.writeLock().lock();
+        try {
+            insertLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChange(listener -> listener.productSaved(product));
+    }
+
+    private void insertLocked(Product product) {
+        product.setId(nextProductId++);
+        Product stored = copy(product);
+        // Matches the column default of the products table
+        stored.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        index(stored);
+    }
+
+    @Override
+    public void saveAll(List<Product> products) {
+        saveAll(products, ProductRepository.DEFAULT_INSERT_CHUNK_SIZE);
+    }
+
+    @Override
+    public BulkInsertReport saveAll(List<Product> products, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        BulkInsertReport report = new BulkInsertReport(products.size());
+        long start = System.nanoTime();
+        for (int from = 0, index = 0; from < products.size(); from += chunkSize, index++) {
+            List<Product> chunk = products.subList(from, Math.min(products.size(), from + chunkSize));
+            long chunkStart = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                for (Product product : chunk) {
+                    insertLocked(product);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            report.addChunk(new BulkInsertReport.ChunkResult(index, chunk.size(), System.nanoTime() - chunkStart, null));
+            for (Product product : chunk) {
+                fireChange(listener -> listener.productSaved(product));
+            }
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    @Override
+    public Product findById(int id) {
+        lock.readLock().lock();
+        try {
+            Product product = products.get(id);
+            return product == null ? null : copy(product);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void update(Product product) {
+        Product previous;
+        lock.writeLock().lock();
+        try {
+            previous = unindex(product.getId());
+            if (previous == null) {
+                return;
+            }
+            Product stored = copy(product);
+            stored.setCreatedAt(previous.getCreatedAt());
+            index(stored);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChange(listener -> listener.productUpdated(product, previous.getCategoryId()));
+    }
+
+    @Override
+    public void delete(int id) {
+        Product previous;
+        lock.writeLock().lock();
+        try {
+            previous = unindex(id);
+            if (previous == null) {
+                return;
+            }
+            reviewsByProduct.remove(id);
+            ratingsByProduct.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChange(listener -> listener.productDeleted(id, previous.getCategoryId()));
+    }
+
+    @Override
+    public void updateStock(int productId, int newStockQuantity) {
+        lock.writeLock().lock();
+        try {
+            Product product = products.get(productId);
+            if (product == null) {
+                return;
+            }
+            byStock.remove(product);
+            product.setStockQuantity(newStockQuantity);
+            byStock.add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChange(listener -> listener.stockUpdated(productId, newStockQuantity));
+    }
+
+    @Override
+    public boolean reserveStock(int productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        if (!adjustStock(productId, -quantity)) {
+            return false;
+        }
+        fireChange(listener -> listener.stockAdjusted(productId, -quantity));
+        return true;
+    }
+
+    @Override
+    public void releaseStock(int productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        if (adjustStock(productId, quantity)) {
+            fireChange(listener -> listener.stockAdjusted(productId, quantity));
+        }
+    }
+
+    // The write lock already serializes writers, so no admission is needed here
+    private boolean adjustStock(int productId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Product product = products.get(productId);
+            if (product == null || product.getStockQuantity() + delta < 0) {
+                return false;
+            }
+            byStock.remove(product);
+            product.setStockQuantity(product.getStockQuantity() + delta);
+            byStock.add(product);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return findAll(ProductProjection.FULL);
+    }
+
+    @Override
+    public List<Product> findAll(ProductProjection projection) {
+        lock.readLock().lock();
+        try {
+            return copyAll(products.values(), projection);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByCategory(int categoryId) {
+        return findByCategory(categoryId, ProductProjection.FULL);
+    }
+
+    @Override
+    public List<Product> findByCategory(int categoryId, ProductProjection projection) {
+        lock.readLock().lock();
+        try {
+            return copyIds(idsByCategory.get(categoryId), projection);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByAvailability(boolean isAvailable) {
+        return findByAvailability(isAvailable, ProductProjection.FULL);
+    }
+
+    @Override
+    public List<Product> findByAvailability(boolean isAvailable, ProductProjection projection) {
+        lock.readLock().lock();
+        try {
+            return copyIds(idsByAvailability.get(isAvailable), projection);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findByPriceRange(double minPrice, double maxPrice) {
+        Product from = new Product(Integer.MIN_VALUE, null, null, 0, minPrice, 0, 0, null, null, false);
+        Product to = new Product(Integer.MAX_VALUE, null, null, 0, maxPrice, 0, 0, null, null, false);
+        return range(byPrice, from, to);
+    }
+
+    @Override
+    public List<Product> findByWeightRange(double minWeight, double maxWeight) {
+        Product from = new Product(Integer.MIN_VALUE, null, null, 0, 0, 0, minWeight, null, null, false);
+        Product to = new Product(Integer.MAX_VALUE, null, null, 0, 0, 0, maxWeight, null, null, false);
+        return range(byWeight, from, to);
+    }
+
+    @Override
+    public List<Product> findLowStock(int threshold) {
+        Product to = new Product(Integer.MIN_VALUE, null, null, 0, 0, threshold, 0, null, null, false);
+        lock.readLock().lock();
+        try {
+            return copyAll(byStock.headSet(to, false), ProductProjection.FULL);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Product> range(NavigableSet<Product> index, Product from, Product to) {
+        lock.readLock().lock();
+        try {
+            if (index.comparator().compare(from, to) > 0) {
+                return new ArrayList<>();
+            }
+            return copyAll(index.subSet(from, true, to, true), ProductProjection.FULL);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> findRecent(int limit) {
+        return findRecent(limit, ProductProjection.FULL);
+    }
+
+    @Override
+    public List<Product> findRecent(int limit, ProductProjection projection) {
+        lock.readLock().lock();
+        try {
+            List<Product> recent = new ArrayList<>();
+            Iterator<Product> newest = newestFirst.iterator();
+            while (recent.size() < limit && newest.hasNext()) {
+                recent.add(copy(newest.next(), projection));
+            }
+            return recent;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Product> search(String query, int limit) {
+        List<Product> matches = searchByName(query);
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    // Case-insensitive substring match, like LIKE '%name%' under the default MySQL collation
+    @Override
+    public List<Product> searchByName(String name) {
+        String needle = name.toLowerCase(Locale.ROOT);
+        return filter(product -> product.getName() != null
+                && product.getName().toLowerCase(Locale.ROOT).contains(needle));
+    }
+
+    private List<Product> filter(Predicate<Product> predicate) {
+        lock.readLock().lock();
+        try {
+            List<Product> matches = new ArrayList<>();
+            for (Product product : products.values()) {
+                if (predicate.test(product)) {
+                    matches.add(copy(product));
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countProducts() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> countProductsByCategory() {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> counts = new HashMap<>();
+            idsByCategory.forEach((categoryId, ids) -> counts.put(categoryId, ids.size()));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Product> copyAll(Collection<Product> source, ProductProjection projection) {
+        List<Product> copies = new ArrayList<>(source.size());
+        for (Product product : source) {
+            copies.add(copy(product, projection));
+        }
+        return copies;
+    }
+
+    private List<Product> copyIds(Set<Integer> ids, ProductProjection projection) {
+        List<Product> copies = new ArrayList<>();
+        if (ids != null) {
+            for (Integer id : ids) {
+                copies.add(copy(products.get(id), projection));
+            }
+        }
+        return copies;
+    }
+
+    // Pagination
+
+    @Override
+    public Page<Product> findPage(ProductSortOrder order, String cursor, int pageSize) {
+        return findPage(order, cursor, pageSize, ProductProjection.FULL);
+    }
+
+    @Override
+    public Page<Product> findPage(ProductSortOrder order, String cursor, int pageSize, ProductProjection projection) {
+        NavigableSet<Product> index = order == ProductSortOrder.NEWEST_FIRST ? newestFirst : byPrice;
+        return findPage(() -> index, order, cursor, pageSize, projection);
+    }
+
+    @Override
+    public Page<Product> findPageByCategory(int categoryId, ProductSortOrder order, String cursor, int pageSize) {
+        return findPageByCategory(categoryId, order, cursor, pageSize, ProductProjection.FULL);
+    }
+
+    @Override
+    public Page<Product> findPageByCategory(int categoryId, ProductSortOrder order, String cursor, int pageSize,
+                                            ProductProjection projection) {
+        Map<Integer, NavigableSet<Product>> indexes =
+                order == ProductSortOrder.NEWEST_FIRST ? newestFirstInCategory : byPriceInCategory;
+        return findPage(() -> indexes.get(categoryId), order, cursor, pageSize, projection);
+    }
+
+    // The index is looked up under the read lock; null stands for an empty one
+    private Page<Product> findPage(Supplier<NavigableSet<Product>> indexes, ProductSortOrder order, String cursor,
+                                   int pageSize, ProductProjection projection) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        ProductCursor after = cursor == null ? null : ProductCursor.decode(order, cursor);
+
+        lock.readLock().lock();
+        try {
+            NavigableSet<Product> index = indexes.get();
+            if (index == null) {
+                return new Page<>(new ArrayList<>(), null);
+            }
+            Iterable<Product> rows = after == null ? index : index.tailSet(after.toProbe(), false);
+            List<Product> page = new ArrayList<>();
+            Product last = null;
+            boolean more = false;
+            for (Product product : rows) {
+                if (page.size() == pageSize) {
+                    more = true;
+                    break;
+                }
+                page.add(copy(product, projection));
+                last = product;
+            }
+            return new Page<>(page, more ? ProductCursor.encode(order, last) : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Streaming; the stream iterates over a copy taken when it is created
+
+    @Override
+    public Stream<Product> streamAll() {
+        return findAll().stream();
+    }
+
+    @Override
+    public Stream<Product> streamByCategory(int categoryId) {
+        return findByCategory(categoryId).stream();
+    }
+
+    @Override
+    public Stream<Product> streamByAvailability(boolean isAvailable) {
+        return findByAvailability(isAvailable).stream();
+    }
+
+    @Override
+    public Stream<Product> streamByPriceRange(double minPrice, double maxPrice) {
+        return findByPriceRange(minPrice, maxPrice).stream();
+    }
+
+    @Override
+    public Stream<Product> streamByWeightRange(double minWeight, double maxWeight) {
+        return findByWeightRange(minWeight, maxWeight).stream();
+    }
+
+    @Override
+    public Stream<Product> streamLowStock(int threshold) {
+        return findLowStock(threshold).stream();
+    }
+
+    @Override
+    public void forEachProduct(Consumer<? super Product> visitor) {
+        findAll().forEach(visitor);
+    }
+
+    @Override
+    public ExportReport exportCatalog(WritableByteChannel channel, ImportFormat format, boolean gzip) throws IOException {
+        long start = System.nanoTime();
+        CatalogWriter writer = new CatalogWriter(channel, format, gzip);
+        // Written from a copy so a slow channel does not hold the lock
+        for (Product product : findAll()) {
+            writer.write(product);
+        }
+        writer.finish();
+        return new ExportReport(writer.getRowCount(), writer.getBytesWritten(), System.nanoTime() - start);
+    }
+
+    // Details and reviews
+
+    @Override
+    public ProductDetail getProductDetails(int productId) {
+        lock.readLock().lock();
+        try {
+            return detailLocked(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<ProductDetail> getProductDetails(Collection<Integer> productIds) {
+        lock.readLock().lock();
+        try {
+            List<ProductDetail> details = new ArrayList<>();
+            for (Integer id : new LinkedHashSet<>(productIds)) {
+                ProductDetail detail = detailLocked(id);
+                if (detail != null) {
+                    details.add(detail);
+                }
+            }
+            return details;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Like the JDBC join, a product whose category no longer exists has no details
+    private ProductDetail detailLocked(int productId) {
+        Product product = products.get(productId);
+        if (product == null) {
+            return null;
+        }
+        Category category = categories.get(product.getCategoryId());
+        if (category == null) {
+            return null;
+        }
+        ProductDetail detail = new ProductDetail(copy(product), category.name);
+        detail.setReviews(new ArrayList<>(reviewsByProduct.getOrDefault(productId, List.of())));
+        detail.setRatingSummary(ratingsByProduct.getOrDefault(productId, RatingSummary.EMPTY));
+        return detail;
+    }
+
+    @Override
+    public ProductDetail getProductDetails(int productId, int reviewPageSize) {
+        lock.readLock().lock();
+        try {
+            Product product = products.get(productId);
+            Category category = product == null ? null : categories.get(product.getCategoryId());
+            if (category == null) {
+                return null;
+            }
+            ProductDetail detail = new ProductDetail(copy(product), category.name);
+            Page<Review> reviews = reviewPageLocked(productId, null, reviewPageSize);
+            detail.setReviews(new ArrayList<>(reviews.getItems()));
+            detail.setNextReviewCursor(reviews.getNextCursor());
+            detail.setRatingSummary(ratingsByProduct.getOrDefault(productId, RatingSummary.EMPTY));
+            return detail;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public RatingSummary getRatingSummary(int productId) {
+        lock.readLock().lock();
+        try {
+            return ratingsByProduct.getOrDefault(productId, RatingSummary.EMPTY);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Review> findReviews(int productId, String cursor, int pageSize) {
+        lock.readLock().lock();
+        try {
+            return reviewPageLocked(productId, cursor, pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Page<Review> reviewPageLocked(int productId, String cursor, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        List<Review> all = reviewsByProduct.getOrDefault(productId, List.of());
+        // Reviews are appended in id order, so the ones before the cursor start just below its position
+        int end = all.size();
+        if (cursor != null) {
+            int afterRevId = ReviewCursor.decode(productId, cursor);
+            int low = 0;
+            int high = all.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (all.get(mid).getRevId() < afterRevId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            end = low;
+        }
+        List<Review> page = new ArrayList<>(Math.min(pageSize, end));
+        for (int i = end - 1; i >= 0 && page.size() < pageSize; i--) {
+            page.add(all.get(i));
+        }
+        String nextCursor = end > pageSize ? ReviewCursor.encode(productId, page.get(pageSize - 1)) : null;
+        return new Page<>(page, nextCursor);
+    }
+
+    @Override
+    public void addReview(int productId, int star, String description) {
+        lock.writeLock().lock();
+        try {
+            Review review = new Review(nextReviewId++, productId, star, description,
+                    new Timestamp(System.currentTimeMillis()));
+            reviewsByProduct.computeIfAbsent(productId, id -> new ArrayList<>()).add(review);
+            ratingsByProduct.merge(productId, RatingSummary.EMPTY.withReview(star),
+                    (summary, ignored) -> summary.withReview(star));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChange(listener -> listener.reviewAdded(productId, star));
+    }
+
+    // Featured products and categories
+
+    @Override
+    public void addProductToFeatured(int productId, Timestamp fromDate, Timestamp toDate) {
+        fireChange(listener -> listener.featuredAdded(productId, fromDate, toDate));
+    }
+
+    @Override
+    public void removeProductFromFeatured(int productId) {
+        fireChange(listener -> listener.featuredRemoved(productId));
+    }
+
+    // Windows are only kept until they end, so an instant already past may miss ones that have expired
+    @Override
+    public List<Product> findFeatured(Instant at) {
+        return copyAll(featured.findFeatured(at), ProductProjection.FULL);
+    }
+
+    @Override
+    public void createCategory(String name, String description) {
+        int id;
+        lock.writeLock().lock();
+        try {
+            id = nextCategoryId++;
+            categories.put(id, new Category(name, description));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChange(listener -> listener.categoryCreated(id, name));
+    }
+
+    @Override
+    public void deleteCategory(int categoryId) {
+        lock.writeLock().lock();
+        try {
+            if (categories.remove(categoryId) == null) {
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChange(listener -> listener.categoryDeleted(categoryId));
+    }
+
+    @Override
+    public void close() {
+        featured.close();
+    }
+
+    private static final class Category {
+        final String name;
+        final String description;
+
+        Category(String name, String description) {
+            this.name = name;
+            this.description = description;
+        }
+    }
+}
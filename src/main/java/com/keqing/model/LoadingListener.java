@@ -0,0 +1,187 @@
+package com.keqing.model;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Forwards change events to a structure that is loaded from the database, holding them back while a load runs.
+ * Register it before reading the catalog and call {@link #release} once the rows are applied: the held events
+ * are then replayed on top, so a row read by the load can never overwrite a newer save, update or delete.
+ * A stock adjustment is relative and the load may or may not have seen it, so instead of replaying it the
+ * product is read again once the events held so far have been applied. Should adjustments for a product keep
+ * arriving round after round, the last ones are replayed as they are.
+ */
+final class LoadingListener implements ProductChangeListener {
+
+    // Products re-read for adjustments that keep arriving are given up on after this many rounds
+    private static final int MAX_REREAD_ROUNDS = 5;
+
+    private final ProductChangeListener target;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock; null while events go straight to the target
+    private List<HeldEvent> held;
+    // Guarded by lock; products with a held stock adjustment
+    private Set<Integer> adjusted;
+
+    LoadingListener(ProductChangeListener target) {
+        this.target = target;
+    }
+
+    ProductChangeListener getTarget() {
+        return target;
+    }
+
+    // Starts holding events back; call before the load reads anything
+    void hold() {
+        lock.lock();
+        try {
+            if (held == null) {
+                held = new ArrayList<>();
+                adjusted = new HashSet<>();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replays the held events and goes back to forwarding them directly.
+     *
+     * @param reader reads a product's current row, or returns null
+     */
+    void release(IntFunction<Product> reader) {
+        for (int round = 0; ; round++) {
+            Set<Integer> reread;
+            lock.lock();
+            try {
+                if (held == null) {
+                    return;
+                }
+                boolean last = adjusted.isEmpty() || round == MAX_REREAD_ROUNDS;
+                reread = last ? Set.of() : adjusted;
+                for (HeldEvent event : held) {
+                    if (!reread.contains(event.adjustedId)) {
+                        event.event.accept(target);
+                    }
+                }
+                if (last) {
+                    held = null;
+                    adjusted = null;
+                    return;
+                }
+                held = new ArrayList<>();
+                adjusted = new HashSet<>();
+            } finally {
+                lock.unlock();
+            }
+            // Outside the lock; events arriving meanwhile are held for the next round
+            for (int productId : reread) {
+                Product product = reader.apply(productId);
+                if (product != null) {
+                    target.productUpdated(product);
+                }
+            }
+        }
+    }
+
+    private void deliver(Consumer<ProductChangeListener> event) {
+        lock.lock();
+        try {
+            if (held != null) {
+                held.add(new HeldEvent(0, event));
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        event.accept(target);
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        deliver(listener -> listener.productSaved(product));
+    }
+
+    @Override
+    public void productUpdated(Product product) {
+        deliver(listener -> listener.productUpdated(product));
+    }
+
+    @Override
+    public void productUpdated(Product product, int previousCategoryId) {
+        deliver(listener -> listener.productUpdated(product, previousCategoryId));
+    }
+
+    @Override
+    public void stockUpdated(int productId, int newStockQuantity) {
+        deliver(listener -> listener.stockUpdated(productId, newStockQuantity));
+    }
+
+    @Override
+    public void stockAdjusted(int productId, int delta) {
+        lock.lock();
+        try {
+            if (held != null) {
+                // Normally replaced by re-reading the product
+                held.add(new HeldEvent(productId, listener -> listener.stockAdjusted(productId, delta)));
+                adjusted.add(productId);
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        target.stockAdjusted(productId, delta);
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        deliver(listener -> listener.productDeleted(productId));
+    }
+
+    @Override
+    public void productDeleted(int productId, int previousCategoryId) {
+        deliver(listener -> listener.productDeleted(productId, previousCategoryId));
+    }
+
+    @Override
+    public void reviewAdded(int productId, int star) {
+        deliver(listener -> listener.reviewAdded(productId, star));
+    }
+
+    @Override
+    public void categoryCreated(int categoryId, String name) {
+        deliver(listener -> listener.categoryCreated(categoryId, name));
+    }
+
+    @Override
+    public void categoryDeleted(int categoryId) {
+        deliver(listener -> listener.categoryDeleted(categoryId));
+    }
+
+    @Override
+    public void featuredAdded(int productId, Timestamp fromDate, Timestamp toDate) {
+        deliver(listener -> listener.featuredAdded(productId, fromDate, toDate));
+    }
+
+    @Override
+    public void featuredRemoved(int productId) {
+        deliver(listener -> listener.featuredRemoved(productId));
+    }
+
+    private static final class HeldEvent {
+        // The product of a stock adjustment, 0 for every other event
+        final int adjustedId;
+        final Consumer<ProductChangeListener> event;
+
+        HeldEvent(int adjustedId, Consumer<ProductChangeListener> event) {
+            this.adjustedId = adjustedId;
+            this.event = event;
+        }
+    }
+}
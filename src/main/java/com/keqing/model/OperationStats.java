@@ -0,0 +1,82 @@
+package com.keqing.model;
+
+/**
+ * Point-in-time statistics for one repository operation. Latencies are in milliseconds.
+ */
+public class OperationStats {
+
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final double maxMillis;
+    private final double connectionAcquireMillis;
+
+    public OperationStats(String name, long calls, long errors, long rows, double meanMillis, double p50Millis,
+                          double p99Millis, double p999Millis, double maxMillis, double connectionAcquireMillis) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.p999Millis = p999Millis;
+        this.maxMillis = maxMillis;
+        this.connectionAcquireMillis = connectionAcquireMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    // Rows returned by queries, or affected by writes
+    public long getRows() {
+        return rows;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getP999Millis() {
+        return p999Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    // Total time this operation spent waiting for pooled connections
+    public double getConnectionAcquireMillis() {
+        return connectionAcquireMillis;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[calls=" + calls + ", errors=" + errors + ", rows=" + rows
+                + ", p50Ms=" + String.format("%.3f", p50Millis) + ", p99Ms=" + String.format("%.3f", p99Millis)
+                + ", p999Ms=" + String.format("%.3f", p999Millis) + ", maxMs=" + String.format("%.3f", maxMillis)
+                + ", acquireMs=" + String.format("%.3f", connectionAcquireMillis) + "]";
+    }
+}
@@ -0,0 +1,121 @@
+package com.keqing.model;
+
+import com.keqing.Utils.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Read-through cache for {@link ProductRepository#findById(int)} and
+ * {@link ProductRepository#getProductDetails(int)}.
+ * Entries are dropped whenever the repository writes to the product, its reviews or categories.
+ * Every caller gets its own copy of a cached entry, so changing a returned object never affects the cache.
+ */
+public class ProductCache implements ProductChangeListener {
+
+    private final LruCache<Integer, Product> products;
+    private final LruCache<Integer, ProductDetail> details;
+
+    public ProductCache(int maxEntries, long ttlMillis) {
+        this.products = new LruCache<>(maxEntries, ttlMillis);
+        this.details = new LruCache<>(maxEntries, ttlMillis);
+    }
+
+    Product getProduct(int productId, IntFunction<Product> loader) {
+        return copy(products.get(productId, loader::apply));
+    }
+
+    ProductDetail getProductDetails(int productId, IntFunction<ProductDetail> loader) {
+        return copy(details.get(productId, loader::apply));
+    }
+
+    Map<Integer, ProductDetail> getProductDetails(Collection<Integer> productIds,
+                                                  Function<Set<Integer>, Map<Integer, ProductDetail>> loader) {
+        Map<Integer, ProductDetail> cached = details.getAll(productIds, loader);
+        Map<Integer, ProductDetail> copies = new HashMap<>();
+        for (Map.Entry<Integer, ProductDetail> entry : cached.entrySet()) {
+            copies.put(entry.getKey(), copy(entry.getValue()));
+        }
+        return copies;
+    }
+
+    private static Product copy(Product product) {
+        if (product == null) {
+            return null;
+        }
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getCategoryId(),
+                product.getPrice(), product.getStockQuantity(), product.getWeight(), product.getImageUrl(),
+                product.getCreatedAt(), product.isAvailable());
+    }
+
+    // Reviews and rating summaries are immutable, so only the product and the list need copying
+    private static ProductDetail copy(ProductDetail detail) {
+        if (detail == null) {
+            return null;
+        }
+        ProductDetail copy = new ProductDetail(copy(detail.getProduct()), detail.getCategoryName());
+        copy.setReviews(new ArrayList<>(detail.getReviews()));
+        copy.setRatingSummary(detail.getRatingSummary());
+        copy.setNextReviewCursor(detail.getNextReviewCursor());
+        return copy;
+    }
+
+    public LruCache<Integer, Product> getProductCache() {
+        return products;
+    }
+
+    public LruCache<Integer, ProductDetail> getDetailCache() {
+        return details;
+    }
+
+    public void invalidate(int productId) {
+        products.invalidate(productId);
+        details.invalidate(productId);
+    }
+
+    public void invalidateAll() {
+        products.invalidateAll();
+        details.invalidateAll();
+    }
+
+    @Override
+    public void productUpdated(Product product) {
+        invalidate(product.getId());
+    }
+
+    @Override
+    public void stockUpdated(int productId, int newStockQuantity) {
+        invalidate(productId);
+    }
+
+    @Override
+    public void stockAdjusted(int productId, int delta) {
+        invalidate(productId);
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        invalidate(productId);
+    }
+
+    @Override
+    public void reviewAdded(int productId, int star) {
+        details.invalidate(productId);
+    }
+
+    @Override
+    public void categoryDeleted(int categoryId) {
+        // Details embed the category name, and we don't know which products were in the category
+        details.invalidateAll();
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCache[products=" + products + ", details=" + details + "]";
+    }
+}
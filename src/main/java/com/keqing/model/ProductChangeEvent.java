@@ -0,0 +1,107 @@
+package com.keqing.model;
+
+import java.sql.Timestamp;
+
+/**
+ * One change published on a {@link ProductEventBus}.
+ * Instances are reused by the bus: a handler may read an event only during the call it was passed to,
+ * and must copy whatever it wants to keep. Fields that do not apply to the type are 0 or null.
+ */
+public final class ProductChangeEvent {
+
+    public enum Type {
+        PRODUCT_SAVED,
+        PRODUCT_UPDATED,
+        // value is the new stock quantity
+        STOCK_UPDATED,
+        // value is the relative change
+        STOCK_ADJUSTED,
+        PRODUCT_DELETED,
+        // value is the star rating
+        REVIEW_ADDED,
+        // categoryId and name are set
+        CATEGORY_CREATED,
+        CATEGORY_DELETED,
+        // fromDate and toDate are set
+        FEATURED_ADDED,
+        FEATURED_REMOVED
+    }
+
+    long sequence;
+    Type type;
+    int productId;
+    int categoryId;
+    int value;
+    Product product;
+    String name;
+    Timestamp fromDate;
+    Timestamp toDate;
+
+    ProductChangeEvent() {
+    }
+
+    void set(Type type, int productId, int categoryId, int value, Product product, String name,
+             Timestamp fromDate, Timestamp toDate) {
+        this.type = type;
+        this.productId = productId;
+        this.categoryId = categoryId;
+        this.value = value;
+        this.product = product;
+        this.name = name;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    void copyFrom(ProductChangeEvent other) {
+        sequence = other.sequence;
+        set(other.type, other.productId, other.categoryId, other.value, other.product, other.name,
+                other.fromDate, other.toDate);
+    }
+
+    // Position in the bus, starting at 0; gaps mean this subscriber dropped events
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * A copy of the product as written, for saves and updates. It is shared by all subscribers, so it must be
+     * treated as read-only; unlike the event itself it may be kept.
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Timestamp getFromDate() {
+        return fromDate;
+    }
+
+    public Timestamp getToDate() {
+        return toDate;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductChangeEvent[" + sequence + " " + type + ", productId=" + productId
+                + ", categoryId=" + categoryId + ", value=" + value + "]";
+    }
+}
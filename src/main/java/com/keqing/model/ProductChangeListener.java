@@ -0,0 +1,57 @@
+package com.keqing.model;
+
+import java.sql.Timestamp;
+
+/**
+ * Receives a callback after each successful write made through a {@link ProductStore}.
+ * Callbacks run synchronously on the writing thread, so implementations must be quick.
+ * Writes made by other processes directly against the database are not reported.
+ */
+public interface ProductChangeListener {
+
+    default void productSaved(Product product) {
+    }
+
+    default void productUpdated(Product product) {
+    }
+
+    /**
+     * What stores report for an update, with the category the product was in before it. The default forwards
+     * to {@link #productUpdated(Product)}, which is all most listeners need.
+     */
+    default void productUpdated(Product product, int previousCategoryId) {
+        productUpdated(product);
+    }
+
+    default void stockUpdated(int productId, int newStockQuantity) {
+    }
+
+    // A relative change, e.g. -2 when two units were reserved
+    default void stockAdjusted(int productId, int delta) {
+    }
+
+    default void productDeleted(int productId) {
+    }
+
+    // What stores report for a delete; forwards to productDeleted(int) by default
+    default void productDeleted(int productId, int previousCategoryId) {
+        productDeleted(productId);
+    }
+
+    default void reviewAdded(int productId, int star) {
+    }
+
+    // The id is 0 if the database did not report the generated key
+    default void categoryCreated(int categoryId, String name) {
+    }
+
+    default void categoryDeleted(int categoryId) {
+    }
+
+    default void featuredAdded(int productId, Timestamp fromDate, Timestamp toDate) {
+    }
+
+    // Removes every featured window of the product
+    default void featuredRemoved(int productId) {
+    }
+}
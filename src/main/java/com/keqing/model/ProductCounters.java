@@ -0,0 +1,267 @@
+package com.keqing.model;
+
+import com.keqing.db.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live product counts, overall and per category.
+ * Counted from the database with one {@code GROUP BY} on {@link #reconcile()}, recounted every
+ * {@code reconcileIntervalMillis} to correct drift from writers outside this repository, and kept current
+ * by the repository's writes in between. Saves, and updates and deletes that report the product's previous
+ * category, are applied at once as a change of one. Anything the counts cannot follow that way, such as a
+ * category delete or a decrement of a category already at zero, schedules a recount in the background
+ * instead, and the counts catch up within {@link #RECOUNT_DELAY_MILLIS} plus the query time.
+ * Reads return the last published counts and never touch the database.
+ */
+public final class ProductCounters implements ProductChangeListener, AutoCloseable {
+
+    // Bursts of writes needing a recount within this window share one
+    public static final long RECOUNT_DELAY_MILLIS = 200;
+
+    private static final String COUNT_SQL = "SELECT category, COUNT(*) FROM products GROUP BY category";
+
+    private final ConnectionPool connectionPool;
+    private final ScheduledExecutorService reconciler;
+    private final AtomicBoolean recountQueued = new AtomicBoolean();
+
+    // Guarded by this
+    private Map<Integer, Integer> countsByCategory = new HashMap<>();
+    private boolean reading;
+    // A write since the last read started which only a recount can apply
+    private boolean inexact;
+    // Any write while a read was running, which the read may or may not have seen
+    private boolean changedWhileReading;
+
+    private volatile int total;
+    private volatile Map<Integer, Integer> publishedCounts = Map.of();
+
+    private final AtomicLong reconciles = new AtomicLong();
+    private final AtomicLong driftCorrections = new AtomicLong();
+
+    /**
+     * The counts are empty until the first {@link #reconcile()}; register the counters as a listener
+     * before calling it so that no write is missed in between.
+     *
+     * @param reconcileIntervalMillis how often to recount from the database; 0 disables periodic reconciling
+     */
+    public ProductCounters(ConnectionPool connectionPool, long reconcileIntervalMillis) {
+        this.connectionPool = connectionPool;
+        this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-counters");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (reconcileIntervalMillis > 0) {
+            reconciler.scheduleWithFixedDelay(this::reconcileQuietly, reconcileIntervalMillis,
+                    reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    // Unmodifiable; categories without products are absent, as with a GROUP BY
+    public Map<Integer, Integer> getCountsByCategory() {
+        return publishedCounts;
+    }
+
+    /**
+     * Recounts from the database and replaces the in-memory counts. If a recount is already running,
+     * another one is queued after it instead.
+     */
+    public void reconcile() throws SQLException {
+        boolean hadInexact;
+        synchronized (this) {
+            if (reading) {
+                changedWhileReading = true;
+                return;
+            }
+            reading = true;
+            changedWhileReading = false;
+            hadInexact = inexact;
+            inexact = false;
+        }
+
+        Map<Integer, Integer> loaded = new HashMap<>();
+        try (Connection conn = connectionPool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+            while (rs.next()) {
+                loaded.put(rs.getInt(1), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            synchronized (this) {
+                reading = false;
+                inexact |= hadInexact;
+            }
+            throw e;
+        }
+
+        boolean recountAgain;
+        synchronized (this) {
+            reading = false;
+            // The read may or may not include writes made while it ran, so count once more after it
+            recountAgain = changedWhileReading;
+            long count = reconciles.incrementAndGet();
+            if (count > 1 && !hadInexact && !recountAgain && !loaded.equals(countsByCategory)) {
+                driftCorrections.incrementAndGet();
+            }
+            countsByCategory = loaded;
+            publish();
+        }
+        if (recountAgain) {
+            scheduleRecount();
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (SQLException e) {
+            System.out.println("Database error while reconciling product counts: " + e.getMessage());
+        }
+    }
+
+    private void scheduleRecount() {
+        if (recountQueued.compareAndSet(false, true)) {
+            try {
+                reconciler.schedule(() -> {
+                    recountQueued.set(false);
+                    reconcileQuietly();
+                }, RECOUNT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Closed
+                recountQueued.set(false);
+            }
+        }
+    }
+
+    // Called on the writer's thread, so it only flags the counts and leaves the query to the reconciler
+    private void recountLater() {
+        synchronized (this) {
+            inexact = true;
+            if (reading) {
+                changedWhileReading = true;
+            }
+        }
+        scheduleRecount();
+    }
+
+    private synchronized void publish() {
+        int sum = 0;
+        for (int count : countsByCategory.values()) {
+            sum += count;
+        }
+        total = sum;
+        publishedCounts = Collections.unmodifiableMap(new HashMap<>(countsByCategory));
+    }
+
+    public long getReconcileCount() {
+        return reconciles.get();
+    }
+
+    // Number of reconciles that found the counts out of step with the database
+    public long getDriftCorrectionCount() {
+        return driftCorrections.get();
+    }
+
+    @Override
+    public void close() {
+        reconciler.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "ProductCounters[total=" + total + ", categories=" + publishedCounts.size()
+                + ", reconciles=" + getReconcileCount() + ", driftCorrections=" + getDriftCorrectionCount() + "]";
+    }
+
+    // Caller holds this
+    private boolean decrement(int categoryId) {
+        Integer count = countsByCategory.get(categoryId);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            countsByCategory.remove(categoryId);
+        } else {
+            countsByCategory.put(categoryId, count - 1);
+        }
+        return true;
+    }
+
+    // Caller holds this
+    private void applied() {
+        publish();
+        if (reading) {
+            changedWhileReading = true;
+        }
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        synchronized (this) {
+            countsByCategory.merge(product.getCategoryId(), 1, Integer::sum);
+            applied();
+        }
+    }
+
+    @Override
+    public void productUpdated(Product product, int previousCategoryId) {
+        if (product.getCategoryId() == previousCategoryId) {
+            return;
+        }
+        boolean exact;
+        synchronized (this) {
+            exact = decrement(previousCategoryId);
+            countsByCategory.merge(product.getCategoryId(), 1, Integer::sum);
+            applied();
+        }
+        if (!exact) {
+            recountLater();
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId, int previousCategoryId) {
+        boolean exact;
+        synchronized (this) {
+            exact = decrement(previousCategoryId);
+            applied();
+        }
+        if (!exact) {
+            recountLater();
+        }
+    }
+
+    // Without the previous category only a recount can tell what changed
+    @Override
+    public void productUpdated(Product product) {
+        recountLater();
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        recountLater();
+    }
+
+    @Override
+    public void categoryDeleted(int categoryId) {
+        // What happens to the category's products is up to the schema, so recount instead of guessing
+        recountLater();
+    }
+}
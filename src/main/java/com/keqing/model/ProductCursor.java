@@ -0,0 +1,106 @@
+package com.keqing.model;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * The position of the last product on a page, encoded as an opaque URL-safe token.
+ * The token records the sort order it was created for, so it cannot be replayed against a different listing.
+ */
+final class ProductCursor {
+
+    private final ProductSortOrder order;
+    private final String sortKey;
+    private final int id;
+
+    private ProductCursor(ProductSortOrder order, String sortKey, int id) {
+        this.order = order;
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    static String encode(ProductSortOrder order, Product last) {
+        String sortKey;
+        switch (order) {
+            case NEWEST_FIRST:
+                Date createdAt = last.getCreatedAt();
+                int nanos = createdAt instanceof Timestamp ? ((Timestamp) createdAt).getNanos() : 0;
+                sortKey = createdAt.getTime() + "." + nanos;
+                break;
+            case PRICE_LOW_TO_HIGH:
+                sortKey = BigDecimal.valueOf(last.getPrice()).toPlainString();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported sort order: " + order);
+        }
+        String raw = order.name() + "|" + sortKey + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ProductCursor decode(ProductSortOrder order, String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3 || !parts[0].equals(order.name())) {
+                throw new IllegalArgumentException("Cursor does not belong to a " + order + " listing");
+            }
+            ProductCursor cursor = new ProductCursor(order, parts[1], Integer.parseInt(parts[2]));
+            cursor.sortValue(); // validates the sort key
+            return cursor;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and Base64 decoding errors both land here
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+    }
+
+    int getId() {
+        return id;
+    }
+
+    Object sortValue() {
+        if (order == ProductSortOrder.NEWEST_FIRST) {
+            int dot = sortKey.indexOf('.');
+            if (dot < 0) {
+                throw new IllegalArgumentException("Invalid timestamp sort key: " + sortKey);
+            }
+            Timestamp timestamp = new Timestamp(Long.parseLong(sortKey.substring(0, dot)));
+            timestamp.setNanos(Integer.parseInt(sortKey.substring(dot + 1)));
+            return timestamp;
+        }
+        return new BigDecimal(sortKey);
+    }
+
+    /**
+     * A product carrying only this cursor's sort key and id, for seeking in a collection ordered by
+     * {@link ProductSortOrder#getComparator()}.
+     */
+    Product toProbe() {
+        Object value = sortValue();
+        if (value instanceof Timestamp) {
+            return new Product(id, null, null, 0, 0, 0, 0, null, (Timestamp) value, false);
+        }
+        return new Product(id, null, null, 0, ((BigDecimal) value).doubleValue(), 0, 0, null, null, false);
+    }
+
+    /**
+     * Binds the parameters of {@link ProductSortOrder#getSeekCondition()} starting at {@code index}.
+     * Returns the next free parameter index.
+     */
+    int bind(PreparedStatement pstmt, int index) throws SQLException {
+        Object value = sortValue();
+        for (int i = 0; i < 2; i++) {
+            if (value instanceof Timestamp) {
+                pstmt.setTimestamp(index++, (Timestamp) value);
+            } else {
+                pstmt.setBigDecimal(index++, (BigDecimal) value);
+            }
+        }
+        pstmt.setInt(index++, id);
+        return index;
+    }
+}
@@ -7,6 +7,9 @@ public class ProductDetail {
     private Product product;
     private String categoryName;
     private List<Review> reviews;
+    private RatingSummary ratingSummary = RatingSummary.EMPTY;
+    // Set when the reviews are only the first page of them
+    private String nextReviewCursor;
 
     public ProductDetail(Product product, String categoryName) {
         this.product = product;
@@ -15,7 +18,35 @@ public class ProductDetail {
     }
 
     // Getters and setters
+    public Product getProduct() {
+        return product;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
     public void setReviews(List<Review> reviews) {
         this.reviews = reviews;
     }
+
+    public RatingSummary getRatingSummary() {
+        return ratingSummary;
+    }
+
+    public void setRatingSummary(RatingSummary ratingSummary) {
+        this.ratingSummary = ratingSummary;
+    }
+
+    public String getNextReviewCursor() {
+        return nextReviewCursor;
+    }
+
+    public void setNextReviewCursor(String nextReviewCursor) {
+        this.nextReviewCursor = nextReviewCursor;
+    }
 }
@@ -0,0 +1,363 @@
+package com.keqing.model;
+
+import java.lang.invoke.VarHandle;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes every change reported to it as a typed {@link ProductChangeEvent} on a preallocated ring buffer.
+ * Register it with {@link ProductStore#addChangeListener} (or use {@link ProductRepository#enableEventBus}),
+ * then {@link #subscribe} handlers; each subscription reads the ring on its own thread, in batches.
+ * <p>
+ * Writers only claim a sequence number and copy a few fields into the slot, guarded by the slot's version
+ * (a seqlock): odd while it is being written, even once it is stable. Readers copy the slot and keep the
+ * copy only if the version did not change meanwhile. Nothing waits for subscribers, so a subscriber that
+ * falls a full ring behind is skipped ahead to the oldest event still in the ring, and is told how many it
+ * missed through {@link ProductEventHandler#onDropped}.
+ */
+public class ProductEventBus implements ProductChangeListener, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    // How long an idle subscriber spins, then yields, before it parks until the next publish
+    private static final int IDLE_SPINS = 100;
+    private static final int IDLE_YIELDS = 100;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public ProductEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public ProductEventBus(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot();
+        }
+        mask = size - 1;
+    }
+
+    public Subscription subscribe(String name, ProductEventHandler handler) {
+        return subscribe(name, handler, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Starts delivering events published from now on to the handler, on a daemon thread named after the
+     * subscription.
+     */
+    public Subscription subscribe(String name, ProductEventHandler handler, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (closed) {
+            throw new IllegalStateException("Event bus has been closed");
+        }
+        Subscription subscription = new Subscription(name, handler, batchSize, nextSequence.get());
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    public long getPublishedCount() {
+        return nextSequence.get();
+    }
+
+    public List<Subscription> getSubscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    // Stops every subscription; events published afterwards are ignored
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private void publish(ProductChangeEvent.Type type, int productId, int categoryId, int value, Product product,
+                         String name, Timestamp fromDate, Timestamp toDate) {
+        if (closed) {
+            return;
+        }
+        long sequence = nextSequence.getAndIncrement();
+        Slot slot = ring[(int) (sequence & mask)];
+        long version;
+        while (true) {
+            version = slot.version.get();
+            if ((version & 1) == 0 && slot.version.compareAndSet(version, version + 1)) {
+                break;
+            }
+            // Only another writer a full lap away can hold the slot, and only for a few field writes
+            Thread.onSpinWait();
+        }
+        VarHandle.releaseFence();
+        ProductChangeEvent event = slot.event;
+        // A writer a full lap ahead may already have claimed the slot; this event is then lost to everyone
+        if (event.sequence < sequence) {
+            event.sequence = sequence;
+            event.set(type, productId, categoryId, value, product, name, fromDate, toDate);
+        }
+        slot.version.set(version + 2);
+
+        for (Subscription subscription : subscriptions) {
+            if (subscription.sleeping) {
+                LockSupport.unpark(subscription.thread);
+            }
+        }
+    }
+
+    private static Product copy(Product product) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getCategoryId(),
+                product.getPrice(), product.getStockQuantity(), product.getWeight(), product.getImageUrl(),
+                product.getCreatedAt(), product.isAvailable());
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        publish(ProductChangeEvent.Type.PRODUCT_SAVED, product.getId(), product.getCategoryId(), 0, copy(product),
+                null, null, null);
+    }
+
+    @Override
+    public void productUpdated(Product product) {
+        publish(ProductChangeEvent.Type.PRODUCT_UPDATED, product.getId(), product.getCategoryId(), 0,
+                copy(product), null, null, null);
+    }
+
+    @Override
+    public void stockUpdated(int productId, int newStockQuantity) {
+        publish(ProductChangeEvent.Type.STOCK_UPDATED, productId, 0, newStockQuantity, null, null, null, null);
+    }
+
+    @Override
+    public void stockAdjusted(int productId, int delta) {
+        publish(ProductChangeEvent.Type.STOCK_ADJUSTED, productId, 0, delta, null, null, null, null);
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        publish(ProductChangeEvent.Type.PRODUCT_DELETED, productId, 0, 0, null, null, null, null);
+    }
+
+    @Override
+    public void reviewAdded(int productId, int star) {
+        publish(ProductChangeEvent.Type.REVIEW_ADDED, productId, 0, star, null, null, null, null);
+    }
+
+    @Override
+    public void categoryCreated(int categoryId, String name) {
+        publish(ProductChangeEvent.Type.CATEGORY_CREATED, 0, categoryId, 0, null, name, null, null);
+    }
+
+    @Override
+    public void categoryDeleted(int categoryId) {
+        publish(ProductChangeEvent.Type.CATEGORY_DELETED, 0, categoryId, 0, null, null, null, null);
+    }
+
+    @Override
+    public void featuredAdded(int productId, Timestamp fromDate, Timestamp toDate) {
+        publish(ProductChangeEvent.Type.FEATURED_ADDED, productId, 0, 0, null, null, fromDate, toDate);
+    }
+
+    @Override
+    public void featuredRemoved(int productId) {
+        publish(ProductChangeEvent.Type.FEATURED_REMOVED, productId, 0, 0, null, null, null, null);
+    }
+
+    private static final class Slot {
+        // Odd while a writer is filling the event
+        final AtomicLong version = new AtomicLong();
+        final ProductChangeEvent event = new ProductChangeEvent();
+
+        Slot() {
+            event.sequence = -1;
+        }
+    }
+
+    /**
+     * A handler reading the ring on its own thread. Counters are written by that thread only.
+     * An exception from the handler is logged and delivery goes on; an error stops the subscription and
+     * removes it from the bus, after which {@link #isRunning()} is false.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final String name;
+        private final ProductEventHandler handler;
+        private final ProductChangeEvent[] batch;
+        private final Thread thread;
+        private volatile boolean running = true;
+        volatile boolean sleeping;
+
+        // Next sequence to read
+        private volatile long cursor;
+        private volatile long delivered;
+        private volatile long dropped;
+        private volatile long batches;
+
+        private Subscription(String name, ProductEventHandler handler, int batchSize, long start) {
+            this.name = name;
+            this.handler = handler;
+            this.cursor = start;
+            this.batch = new ProductChangeEvent[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                batch[i] = new ProductChangeEvent();
+            }
+            this.thread = new Thread(this::run, "product-events-" + name);
+            thread.setDaemon(true);
+        }
+
+        private void run() {
+            try {
+                int idle = 0;
+                while (running) {
+                    int count = read();
+                    if (count == 0) {
+                        idle = idle(idle);
+                        continue;
+                    }
+                    idle = 0;
+                    for (int i = 0; i < count; i++) {
+                        try {
+                            handler.onEvent(batch[i], i == count - 1);
+                        } catch (RuntimeException e) {
+                            // A failing subscriber must not stop its own stream
+                            System.out.println("Product event handler " + name + " failed: " + e.getMessage());
+                        }
+                    }
+                    delivered += count;
+                    batches++;
+                }
+            } catch (Throwable e) {
+                // Otherwise the thread would die while the subscription still looked alive
+                running = false;
+                subscriptions.remove(this);
+                System.out.println("Product event handler " + name + " stopped: " + e);
+            }
+        }
+
+        // Copies up to a batch of consecutive published events out of the ring
+        private int read() {
+            long next = cursor;
+            int count = 0;
+            while (count < batch.length) {
+                Slot slot = ring[(int) (next & mask)];
+                long version = slot.version.get();
+                if ((version & 1) != 0) {
+                    break;
+                }
+                ProductChangeEvent event = batch[count];
+                event.copyFrom(slot.event);
+                VarHandle.acquireFence();
+                if (slot.version.get() != version || event.sequence < next) {
+                    // Rewritten while copying, or not published yet
+                    break;
+                }
+                if (event.sequence > next) {
+                    if (count > 0) {
+                        // Deliver what came before the gap first
+                        break;
+                    }
+                    long resume = Math.max(next + 1, nextSequence.get() - ring.length);
+                    dropped += resume - next;
+                    try {
+                        handler.onDropped(resume - next);
+                    } catch (RuntimeException e) {
+                        System.out.println("Product event handler " + name + " failed: " + e.getMessage());
+                    }
+                    next = resume;
+                    continue;
+                }
+                next++;
+                count++;
+            }
+            cursor = next;
+            return count;
+        }
+
+        private int idle(int idle) {
+            if (idle < IDLE_SPINS) {
+                Thread.onSpinWait();
+            } else if (idle < IDLE_SPINS + IDLE_YIELDS) {
+                Thread.yield();
+            } else {
+                sleeping = true;
+                // Checked after announcing sleep, so a publish that this misses will see the flag and unpark
+                if (running && nextSequence.get() <= cursor) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+            }
+            return idle + 1;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getDeliveredCount() {
+            return delivered;
+        }
+
+        public long getDroppedCount() {
+            return dropped;
+        }
+
+        public long getBatchCount() {
+            return batches;
+        }
+
+        // Events published but not yet read
+        public long getLag() {
+            return Math.max(0, nextSequence.get() - cursor);
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+
+        /**
+         * Stops the subscription and waits for a handler call in progress to finish, unless called from the
+         * handler itself.
+         */
+        @Override
+        public void close() {
+            running = false;
+            subscriptions.remove(this);
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Subscription[" + name + ", delivered=" + delivered + ", dropped=" + dropped
+                    + ", batches=" + batches + ", lag=" + getLag() + "]";
+        }
+    }
+}
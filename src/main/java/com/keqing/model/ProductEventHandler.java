@@ -0,0 +1,18 @@
+package com.keqing.model;
+
+/**
+ * Consumes events from a {@link ProductEventBus} on the subscription's own thread.
+ * Events arrive in publication order, in batches of whatever was published since the previous batch.
+ */
+@FunctionalInterface
+public interface ProductEventHandler {
+
+    /**
+     * @param endOfBatch true for the last event currently available, a good moment to apply buffered work
+     */
+    void onEvent(ProductChangeEvent event, boolean endOfBatch);
+
+    // Called when the handler fell a full ring behind and the bus skipped it ahead past unread events
+    default void onDropped(long count) {
+    }
+}
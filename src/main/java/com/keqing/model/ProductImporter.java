@@ -0,0 +1,457 @@
+package com.keqing.model;
+
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams product catalogs from CSV or JSON-lines files into a {@link ProductStore}.
+ * The calling thread reads the file in blocks of records, a pool of parser threads turns blocks into validated
+ * products, and a pool of writer threads inserts them with chunked {@code saveAll} calls, each on its own
+ * connection. The stages are joined by bounded queues, so a fast reader waits for slow writers and memory
+ * stays flat however large the file is. Rows are not necessarily inserted in file order.
+ * A quoted CSV field may span lines; its line breaks are read back as line feeds. A record whose quote is not
+ * closed within {@link #MAX_RECORD_LINES} lines or {@link #MAX_RECORD_CHARS} characters is rejected, and reading
+ * resumes on the line after the one it started on.
+ * If a parser or writer thread dies, e.g. on an {@link Error}, the import is abandoned and {@link #importFile}
+ * throws instead of waiting for a stage that will never drain its queue.
+ */
+public class ProductImporter {
+
+    private static final Block END = new Block(new long[0], new ArrayList<>());
+    private static final List<Product> END_OF_CHUNKS = new ArrayList<>();
+    // Longest CSV record accepted when a quoted field spans lines
+    static final int MAX_RECORD_LINES = 1_000;
+    static final int MAX_RECORD_CHARS = 1 << 20;
+    // How often the reader, while blocked on a full queue or waiting for a stage, checks for a dead worker
+    private static final long WORKER_CHECK_MILLIS = 100;
+
+    private final ProductStore store;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final int chunkSize;
+
+    public ProductImporter(ProductStore store) {
+        this(store, Runtime.getRuntime().availableProcessors(), defaultWriterThreads(store),
+                ProductRepository.DEFAULT_INSERT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize rows per insert transaction; also the number of records handed to a parser at a time
+     */
+    public ProductImporter(ProductStore store, int parserThreads, int writerThreads, int chunkSize) {
+        if (parserThreads < 1 || writerThreads < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("Thread counts and chunk size must be positive");
+        }
+        this.store = store;
+        this.parserThreads = parserThreads;
+        this.writerThreads = writerThreads;
+        this.chunkSize = chunkSize;
+    }
+
+    // Leave half the pool for the rest of the application
+    private static int defaultWriterThreads(ProductStore store) {
+        if (store instanceof ProductRepository) {
+            return Math.max(1, ((ProductRepository) store).getConnectionPool().getMaxSize() / 2);
+        }
+        return 1;
+    }
+
+    public ImportReport importFile(Path file, ImportFormat format) throws IOException {
+        ImportReport report = new ImportReport();
+        long start = System.nanoTime();
+        BlockingQueue<Block> blocks = new ArrayBlockingQueue<>(parserThreads * 2);
+        BlockingQueue<List<Product>> chunks = new ArrayBlockingQueue<>(writerThreads * 2);
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, daemon("product-import-parser"));
+        ExecutorService writers = Executors.newFixedThreadPool(writerThreads, daemon("product-import-writer"));
+        // First failure that killed a parser or writer
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            RecordReader input = new RecordReader(reader, format == ImportFormat.CSV);
+            Map<String, Integer> header = null;
+            if (format == ImportFormat.CSV) {
+                String headerLine = input.nextLine();
+                if (headerLine == null) {
+                    return report;
+                }
+                header = parseHeader(headerLine);
+            }
+            Map<String, Integer> columns = header;
+            for (int i = 0; i < parserThreads; i++) {
+                parsers.execute(() -> parse(blocks, chunks, format, columns, report, failure));
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                writers.execute(() -> write(chunks, report, failure));
+            }
+
+            List<String> records = new ArrayList<>(chunkSize);
+            long[] lineNumbers = new long[chunkSize];
+            String record;
+            while ((record = input.next(report)) != null) {
+                lineNumbers[records.size()] = input.getRecordLine();
+                records.add(record);
+                if (records.size() == chunkSize) {
+                    put(blocks, new Block(lineNumbers, records), failure);
+                    records = new ArrayList<>(chunkSize);
+                    lineNumbers = new long[chunkSize];
+                }
+            }
+            if (!records.isEmpty()) {
+                put(blocks, new Block(lineNumbers, records), failure);
+            }
+
+            // Parsers finish every block before the writers are told to stop
+            for (int i = 0; i < parserThreads; i++) {
+                put(blocks, END, failure);
+            }
+            parsers.shutdown();
+            awaitTermination(parsers, failure);
+            for (int i = 0; i < writerThreads; i++) {
+                put(chunks, END_OF_CHUNKS, failure);
+            }
+            writers.shutdown();
+            awaitTermination(writers, failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import of " + file + " was interrupted");
+        } finally {
+            // Only does anything if reading or a worker failed part way
+            parsers.shutdownNow();
+            writers.shutdownNow();
+            report.setElapsedNanos(System.nanoTime() - start);
+        }
+        return report;
+    }
+
+    // Blocks like put, but gives up once a worker has died
+    private static <T> void put(BlockingQueue<T> queue, T item, AtomicReference<Throwable> failure)
+            throws InterruptedException, IOException {
+        while (!queue.offer(item, WORKER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkWorkers(failure);
+        }
+        checkWorkers(failure);
+    }
+
+    private static void awaitTermination(ExecutorService stage, AtomicReference<Throwable> failure)
+            throws InterruptedException, IOException {
+        while (!stage.awaitTermination(WORKER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkWorkers(failure);
+        }
+        checkWorkers(failure);
+    }
+
+    private static void checkWorkers(AtomicReference<Throwable> failure) throws IOException {
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new IOException("Import worker failed: " + cause, cause);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Parser threads
+    private void parse(BlockingQueue<Block> blocks, BlockingQueue<List<Product>> chunks, ImportFormat format,
+                       Map<String, Integer> header, ImportReport report, AtomicReference<Throwable> failure) {
+        try {
+            while (true) {
+                Block block = blocks.take();
+                if (block == END) {
+                    return;
+                }
+                List<Product> products = new ArrayList<>(block.records.size());
+                int read = 0;
+                for (int i = 0; i < block.records.size(); i++) {
+                    String record = block.records.get(i);
+                    if (record.isBlank()) {
+                        continue;
+                    }
+                    read++;
+                    try {
+                        products.add(format == ImportFormat.CSV ? fromCsv(record, header) : fromJson(record));
+                    } catch (RuntimeException e) {
+                        // IllegalArgumentException and JSONException for bad rows, anything else for worse ones
+                        report.reject(block.lineNumbers[i], e.getMessage());
+                    }
+                }
+                report.rowsRead(read);
+                if (!products.isEmpty()) {
+                    chunks.put(products);
+                }
+            }
+        } catch (InterruptedException e) {
+            // The import was abandoned
+        } catch (Throwable t) {
+            // Recorded for the reader, which abandons the import
+            failure.compareAndSet(null, t);
+        }
+    }
+
+    // Writer threads
+    private void write(BlockingQueue<List<Product>> chunks, ImportReport report, AtomicReference<Throwable> failure) {
+        try {
+            while (true) {
+                List<Product> chunk = chunks.take();
+                if (chunk == END_OF_CHUNKS) {
+                    return;
+                }
+                int inserted = 0;
+                try {
+                    inserted = store.saveAll(chunk, chunkSize).getInsertedCount();
+                } catch (RuntimeException e) {
+                    System.out.println("Error while importing products: " + e.getMessage());
+                }
+                report.chunkWritten(inserted, chunk.size() - inserted);
+            }
+        } catch (InterruptedException e) {
+            // The import was abandoned
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        Map<String, Integer> header = new HashMap<>();
+        List<String> names = splitCsv(line);
+        for (int i = 0; i < names.size(); i++) {
+            header.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : new String[]{"name", "category", "price"}) {
+            if (!header.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header has no " + required + " column: " + line);
+            }
+        }
+        return header;
+    }
+
+    static Product fromCsv(String line, Map<String, Integer> header) {
+        List<String> fields = splitCsv(line);
+        return toProduct(column -> {
+            Integer index = header.get(column);
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index);
+            return value.isEmpty() ? null : value;
+        });
+    }
+
+    static Product fromJson(String line) {
+        JSONObject json = new JSONObject(line);
+        return toProduct(column -> json.isNull(column) ? null : json.get(column).toString());
+    }
+
+    /**
+     * Whether the text ends inside a quoted field, by the same rules as {@link #splitCsv}.
+     *
+     * @param quoted whether the text continues a quoted field from the previous line
+     */
+    static boolean endsInQuotedField(String text, boolean quoted) {
+        boolean fieldStart = !quoted;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else {
+                fieldStart = c == ',';
+                continue;
+            }
+            fieldStart = false;
+        }
+        return quoted;
+    }
+
+    // Splits one CSV record. A double quote opens a quoted field only at the start of a field, so a stray one,
+    // as in 24" monitor, is kept as it is.
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+                continue;
+            } else {
+                field.append(c);
+            }
+            fieldStart = false;
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @FunctionalInterface
+    private interface Fields {
+        // Null when the column is absent or empty
+        String get(String column);
+    }
+
+    private static Product toProduct(Fields fields) {
+        String name = fields.get("name");
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("missing name");
+        }
+        int category = parseInt(fields, "category", -1);
+        if (category < 1) {
+            throw new IllegalArgumentException("missing or invalid category");
+        }
+        double price = parseDouble(fields, "price", -1);
+        if (price < 0) {
+            throw new IllegalArgumentException("missing or negative price");
+        }
+        int stockQuantity = parseInt(fields, "stock_quantity", 0);
+        if (stockQuantity < 0) {
+            throw new IllegalArgumentException("negative stock_quantity");
+        }
+        double weight = parseDouble(fields, "weight", 0);
+        if (weight < 0) {
+            throw new IllegalArgumentException("negative weight");
+        }
+        String available = fields.get("is_available");
+        boolean isAvailable = available == null || available.equalsIgnoreCase("true") || available.equals("1");
+        return new Product(0, name.trim(), fields.get("description"), category, price, stockQuantity, weight,
+                fields.get("image_url"), null, isAvailable);
+    }
+
+    private static int parseInt(Fields fields, String column, int missing) {
+        String value = fields.get(column);
+        try {
+            return value == null ? missing : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + ": " + value);
+        }
+    }
+
+    private static double parseDouble(Fields fields, String column, double missing) {
+        String value = fields.get(column);
+        try {
+            double parsed = value == null ? missing : Double.parseDouble(value.trim());
+            if (Double.isNaN(parsed) || Double.isInfinite(parsed)) {
+                throw new NumberFormatException();
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + ": " + value);
+        }
+    }
+
+    // Reads the file line by line, joining the lines of CSV records whose quoted fields hold line breaks
+    private static final class RecordReader {
+        private final BufferedReader reader;
+        private final boolean csv;
+        // Lines given back after a record was rejected, read again before the file
+        private final ArrayDeque<String> pushedBack = new ArrayDeque<>();
+        private long lineNumber;
+        private long recordLine;
+
+        RecordReader(BufferedReader reader, boolean csv) {
+            this.reader = reader;
+            this.csv = csv;
+        }
+
+        String nextLine() throws IOException {
+            String line = pushedBack.isEmpty() ? reader.readLine() : pushedBack.poll();
+            if (line != null) {
+                lineNumber++;
+            }
+            return line;
+        }
+
+        // Null at the end of the file; rejects a record whose quote does not close in time
+        String next(ImportReport report) throws IOException {
+            while (true) {
+                String line = nextLine();
+                recordLine = lineNumber;
+                if (line == null || !csv || !endsInQuotedField(line, false)) {
+                    return line;
+                }
+                StringBuilder record = new StringBuilder(line);
+                List<String> continued = new ArrayList<>();
+                boolean quoted = true;
+                while (quoted && continued.size() < MAX_RECORD_LINES && record.length() <= MAX_RECORD_CHARS) {
+                    String next = nextLine();
+                    if (next == null) {
+                        break;
+                    }
+                    continued.add(next);
+                    record.append('\n').append(next);
+                    quoted = endsInQuotedField(next, true);
+                }
+                if (!quoted) {
+                    return record.toString();
+                }
+                report.rowsRead(1);
+                report.reject(recordLine, "quoted field not closed");
+                // Start again on the line after the rejected record's first line
+                for (int i = continued.size() - 1; i >= 0; i--) {
+                    pushedBack.addFirst(continued.get(i));
+                }
+                lineNumber -= continued.size();
+            }
+        }
+
+        // Line the record last returned by next starts on
+        long getRecordLine() {
+            return recordLine;
+        }
+    }
+
+    private static final class Block {
+        // Line each record starts on
+        final long[] lineNumbers;
+        final List<String> records;
+
+        Block(long[] lineNumbers, List<String> records) {
+            this.lineNumbers = lineNumbers;
+            this.records = records;
+        }
+    }
+}
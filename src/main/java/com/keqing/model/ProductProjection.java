@@ -0,0 +1,21 @@
+package com.keqing.model;
+
+/**
+ * Column sets the product finders can select.
+ * {@link #LISTING} leaves out the description, which is the widest column and is not shown on list pages;
+ * products read through it have a null description.
+ */
+public enum ProductProjection {
+    FULL("*"),
+    LISTING("id, name, category, price, stock_quantity, weight, image_url, created_at, is_available");
+
+    private final String columns;
+
+    ProductProjection(String columns) {
+        this.columns = columns;
+    }
+
+    public String getColumns() {
+        return columns;
+    }
+}
@@ -1,43 +1,448 @@
 package com.keqing.model;
 
+import com.keqing.db.ConnectionPool;
+
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.WritableByteChannel;
 import java.sql.*;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.keqing.Utils.UrlTools.convertToJdbcUrl;
+import static com.keqing.Utils.UrlTools.withParameter;
 
 /**
  * This class provides an interface for interacting with the product database.
  * It supports CRUD operations and various queries related to products.
+ * Connections are borrowed from a bounded {@link ConnectionPool}; call {@link #close()} on shutdown.
+ * This is the JDBC implementation of {@link ProductStore}.
  */
-public class ProductRepository {
+public class ProductRepository implements ProductStore {
+
+    public static final int DEFAULT_STREAM_FETCH_SIZE = 500;
+    public static final int DEFAULT_INSERT_CHUNK_SIZE = 1000;
 
-    private final String databaseUrl;
-    private final String username;
-    private final String password;
+    // Upper bound on the ids bound into one IN (...) list by the bulk lookups
+    private static final int MAX_IN_LIST_SIZE = 512;
+
+    private final ConnectionPool connectionPool;
+    private volatile int streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
+    private final List<ProductChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile ProductCache productCache;
+    private volatile StockWriteBehind stockWriteBehind;
+    private volatile ProductSearchIndex searchIndex;
+    private volatile CatalogSnapshot catalogSnapshot;
+    private volatile ProductCounters productCounters;
+    private volatile FeaturedIndex featuredIndex;
+    private volatile RatingSummaries ratingSummaries;
+    private volatile ProductEventBus eventBus;
+    private final StockReservations stockReservations = new StockReservations(this::decrementStock);
+    private volatile RepositoryMetrics metrics;
 
     public ProductRepository(String url, String username, String password) {
-        this.databaseUrl = convertToJdbcUrl(url);
-        this.username = username;
-        this.password = password;
+        this(new ConnectionPool(toRepositoryUrl(url), username, password));
+    }
+
+    private static String toRepositoryUrl(String url) {
+        String jdbcUrl = convertToJdbcUrl(url);
+        if (!jdbcUrl.startsWith("jdbc:mysql:")) {
+            // The tuning parameters below are Connector/J specific
+            return jdbcUrl;
+        }
+        // Server-side prepared statements, so the pool's statement cache also saves the server-side parse
+        jdbcUrl = withParameter(jdbcUrl, "useServerPrepStmts", "true");
+        // Cursor fetch lets the stream* methods pull rows in fetch-size chunks instead of buffering the whole result
+        jdbcUrl = withParameter(jdbcUrl, "useCursorFetch", "true");
+        // Lets the driver send a batched INSERT as multi-row statements
+        return withParameter(jdbcUrl, "rewriteBatchedStatements", "true");
+    }
+
+    public ProductRepository(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    public int getStreamFetchSize() {
+        return streamFetchSize;
+    }
+
+    // Number of rows the stream* methods fetch from the server per round trip
+    public void setStreamFetchSize(int streamFetchSize) {
+        if (streamFetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + streamFetchSize);
+        }
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    public void addChangeListener(ProductChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ProductChangeListener listener) {
+        // Structures loaded from the database are registered behind a LoadingListener
+        changeListeners.removeIf(registered -> registered == listener
+                || registered instanceof LoadingListener loading && loading.getTarget() == listener);
+    }
+
+    // Registers the target so that events arriving while load runs are applied after it, not before
+    private void loadAndFollow(ProductChangeListener target, Runnable load) {
+        LoadingListener listener = new LoadingListener(target);
+        listener.hold();
+        addChangeListener(listener);
+        load.run();
+        listener.release(this::loadById);
+    }
+
+    /**
+     * Puts a read-through cache in front of findById and getProductDetails.
+     * Writes made through this repository invalidate the affected entries.
+     */
+    public ProductCache enableCache(int maxEntries, long ttlMillis) {
+        disableCache();
+        ProductCache cache = new ProductCache(maxEntries, ttlMillis);
+        addChangeListener(cache);
+        productCache = cache;
+        return cache;
+    }
+
+    public void disableCache() {
+        ProductCache cache = productCache;
+        if (cache != null) {
+            productCache = null;
+            removeChangeListener(cache);
+        }
+    }
+
+    public ProductCache getProductCache() {
+        return productCache;
+    }
+
+    /**
+     * Switches updateStock to write-behind mode: updates are coalesced per product and written in batches
+     * of up to {@code batchSize} rows, at least every {@code flushIntervalMillis}.
+     * Reads may lag behind until the next flush; use {@link StockWriteBehind#flush()} when they must not.
+     */
+    public StockWriteBehind enableStockWriteBehind(int batchSize, long flushIntervalMillis) {
+        disableStockWriteBehind();
+        stockWriteBehind = new StockWriteBehind(connectionPool, batchSize, flushIntervalMillis,
+                (productId, newStockQuantity) -> fireChange(listener -> listener.stockUpdated(productId, newStockQuantity)));
+        return stockWriteBehind;
+    }
+
+    // Flushes any pending stock updates and goes back to writing them synchronously
+    public void disableStockWriteBehind() {
+        StockWriteBehind writeBehind = stockWriteBehind;
+        if (writeBehind != null) {
+            stockWriteBehind = null;
+            writeBehind.close();
+        }
+    }
+
+    public StockWriteBehind getStockWriteBehind() {
+        return stockWriteBehind;
+    }
+
+    /**
+     * Builds an in-memory search index over product names and descriptions and keeps it current
+     * through this repository's writes. Once enabled, {@link #search(String, int)} is served from memory.
+     */
+    public ProductSearchIndex enableSearchIndex() {
+        disableSearchIndex();
+        ProductSearchIndex index = new ProductSearchIndex();
+        loadAndFollow(index, () -> forEachProduct(index::add));
+        searchIndex = index;
+        return index;
+    }
+
+    public void disableSearchIndex() {
+        ProductSearchIndex index = searchIndex;
+        if (index != null) {
+            searchIndex = null;
+            removeChangeListener(index);
+        }
+    }
+
+    public ProductSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Loads a columnar snapshot of the catalog and serves findByPriceRange, findByWeightRange, findLowStock
+     * and findByAvailability from it. The snapshot follows this repository's writes; call
+     * {@link #refreshCatalogSnapshot()} to pick up changes made by other processes.
+     */
+    public CatalogSnapshot enableCatalogSnapshot() {
+        disableCatalogSnapshot();
+        CatalogSnapshot snapshot = new CatalogSnapshot();
+        loadAndFollow(snapshot, () -> snapshot.load(findAll()));
+        catalogSnapshot = snapshot;
+        return snapshot;
+    }
+
+    public void refreshCatalogSnapshot() {
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot == null) {
+            return;
+        }
+        for (ProductChangeListener listener : changeListeners) {
+            if (listener instanceof LoadingListener loading && loading.getTarget() == snapshot) {
+                // Same as the first load: writes made while the catalog is read are applied afterwards
+                loading.hold();
+                snapshot.load(findAll());
+                loading.release(this::loadById);
+                return;
+            }
+        }
     }
 
-    private Connection connect() throws SQLException {
+    public void disableCatalogSnapshot() {
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot != null) {
+            catalogSnapshot = null;
+            removeChangeListener(snapshot);
+        }
+    }
+
+    public CatalogSnapshot getCatalogSnapshot() {
+        return catalogSnapshot;
+    }
+
+    /**
+     * Keeps countProducts and countProductsByCategory in memory. The counts are seeded from the database,
+     * follow this repository's writes and are recounted every {@code reconcileIntervalMillis}.
+     */
+    public ProductCounters enableCounters(long reconcileIntervalMillis) throws SQLException {
+        disableCounters();
+        ProductCounters counters = new ProductCounters(connectionPool, reconcileIntervalMillis);
+        // Seeded only once the listener is registered, so no write falls between the two
+        addChangeListener(counters);
         try {
-            return DriverManager.getConnection(databaseUrl, username, password);
+            counters.reconcile();
+        } catch (SQLException e) {
+            removeChangeListener(counters);
+            counters.close();
+            throw e;
+        }
+        productCounters = counters;
+        return counters;
+    }
+
+    public void disableCounters() {
+        ProductCounters counters = productCounters;
+        if (counters != null) {
+            productCounters = null;
+            removeChangeListener(counters);
+            counters.close();
+        }
+    }
+
+    public ProductCounters getProductCounters() {
+        return productCounters;
+    }
+
+    /**
+     * Loads {@code featured_product} into a {@link FeaturedIndex} and serves findFeatured from it.
+     * The index follows this repository's writes; call this again to pick up changes made by other processes.
+     */
+    public FeaturedIndex enableFeaturedIndex() throws SQLException {
+        disableFeaturedIndex();
+        FeaturedIndex index = new FeaturedIndex(Clock.systemUTC(), this::findById);
+        addChangeListener(index);
+        try {
+            loadFeaturedIndex(index);
+        } catch (SQLException e) {
+            removeChangeListener(index);
+            index.close();
+            throw e;
+        }
+        featuredIndex = index;
+        return index;
+    }
+
+    private void loadFeaturedIndex(FeaturedIndex index) throws SQLException {
+        String sql = "SELECT f.`from` AS featured_from, f.`to` AS featured_to, p.* " +
+                "FROM featured_product f JOIN products p ON p.id = f.id";
+        List<FeaturedIndex.Window> windows = new ArrayList<>();
+        Map<Integer, Product> products = new HashMap<>();
+        try (RepositoryMetrics.Operation op = begin("loadFeaturedIndex");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            ProductRowMapper mapper = ProductRowMapper.of(rs);
+            while (rs.next()) {
+                Product product = mapper.map(rs);
+                products.putIfAbsent(product.getId(), product);
+                windows.add(new FeaturedIndex.Window(product.getId(),
+                        rs.getTimestamp("featured_from"), rs.getTimestamp("featured_to")));
+            }
+            op.rows(windows.size());
+            op.succeeded();
+        }
+        index.load(windows, products.values());
+    }
+
+    public void disableFeaturedIndex() {
+        FeaturedIndex index = featuredIndex;
+        if (index != null) {
+            featuredIndex = null;
+            removeChangeListener(index);
+            index.close();
+        }
+    }
+
+    public FeaturedIndex getFeaturedIndex() {
+        return featuredIndex;
+    }
+
+    /**
+     * Keeps each product's rating summary in memory once it has been asked for, updated by addReview,
+     * instead of aggregating the product's reviews on every getRatingSummary call.
+     */
+    public RatingSummaries enableRatingSummaries() {
+        disableRatingSummaries();
+        RatingSummaries summaries = new RatingSummaries();
+        addChangeListener(summaries);
+        ratingSummaries = summaries;
+        return summaries;
+    }
+
+    public void disableRatingSummaries() {
+        RatingSummaries summaries = ratingSummaries;
+        if (summaries != null) {
+            ratingSummaries = null;
+            removeChangeListener(summaries);
+        }
+    }
+
+    public RatingSummaries getRatingSummaries() {
+        return ratingSummaries;
+    }
+
+    /**
+     * Publishes every write made through this repository on a {@link ProductEventBus} of the given capacity,
+     * so that derived structures can subscribe instead of polling the database.
+     */
+    public ProductEventBus enableEventBus(int capacity) {
+        disableEventBus();
+        ProductEventBus bus = new ProductEventBus(capacity);
+        addChangeListener(bus);
+        eventBus = bus;
+        return bus;
+    }
+
+    // Stops every subscription of the current bus
+    public void disableEventBus() {
+        ProductEventBus bus = eventBus;
+        if (bus != null) {
+            eventBus = null;
+            removeChangeListener(bus);
+            bus.close();
+        }
+    }
+
+    public ProductEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Starts recording latency, call, error and row counts per operation and publishes them as the MXBean
+     * {@code com.keqing:type=ProductRepository,id=<identity>}.
+     */
+    public RepositoryMetrics enableMetrics() {
+        disableMetrics();
+        RepositoryMetrics repositoryMetrics = new RepositoryMetrics();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(repositoryMetrics, metricsName());
+        } catch (JMException e) {
+            System.out.println("Could not register repository metrics with JMX: " + e.getMessage());
+        }
+        metrics = repositoryMetrics;
+        return repositoryMetrics;
+    }
+
+    public void disableMetrics() {
+        if (metrics != null) {
+            metrics = null;
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName());
+            } catch (JMException e) {
+                // Registration failed in the first place
+            }
+        }
+    }
+
+    public RepositoryMetrics getMetrics() {
+        return metrics;
+    }
+
+    private ObjectName metricsName() throws MalformedObjectNameException {
+        return new ObjectName("com.keqing:type=ProductRepository,id=" + Integer.toHexString(System.identityHashCode(this)));
+    }
+
+    private RepositoryMetrics.Operation begin(String operation) {
+        RepositoryMetrics repositoryMetrics = metrics;
+        return repositoryMetrics == null ? RepositoryMetrics.Operation.NONE : repositoryMetrics.begin(operation);
+    }
+
+    private void fireChange(Consumer<ProductChangeListener> event) {
+        for (ProductChangeListener listener : changeListeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                // A misbehaving listener must not fail a write that has already been committed
+                System.out.println("Product change listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        disableCounters();
+        disableFeaturedIndex();
+        disableStockWriteBehind();
+        disableEventBus();
+        disableMetrics();
+        connectionPool.close();
+    }
+
+    private Connection connect(RepositoryMetrics.Operation op) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return connectionPool.getConnection();
         } catch (SQLException e) {
             System.out.println("Database connection error: " + e.getMessage());
             throw e; // Re-throw to handle it further up the call stack if necessary
+        } finally {
+            op.connectionAcquired(System.nanoTime() - start);
         }
     }
 
     public void save(Product product) {
         String sql = "INSERT INTO products (name, description, category, price, stock_quantity, weight, image_url, is_available) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (RepositoryMetrics.Operation op = begin("save");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             pstmt.setString(1, product.getName());
             pstmt.setString(2, product.getDescription());
@@ -47,62 +452,49 @@ public class ProductRepository {
             pstmt.setDouble(6, product.getWeight());
             pstmt.setString(7, product.getImageUrl());
             pstmt.setBoolean(8, product.isAvailable());
-            pstmt.executeUpdate();
+            op.rows(pstmt.executeUpdate());
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    product.setId(keys.getInt(1));
+                }
+            }
+            op.succeeded();
 
             System.out.println("Product saved: " + product.getName());
+            fireChange(listener -> listener.productSaved(product));
         } catch (SQLException e) {
             System.out.println("Database error while saving product: " + e.getMessage());
         }
     }
 
     public List<Product> findAll() {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products";
+        return findAll(ProductProjection.FULL);
+    }
 
-        try (Connection conn = connect();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    public List<Product> findAll(ProductProjection projection) {
+        return queryProducts("findAll", "SELECT " + projection.getColumns() + " FROM products",
+                pstmt -> {}, "retrieving products");
+    }
 
-            while (rs.next()) {
-                Product product = new Product(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getInt("category"),
-                        rs.getDouble("price"),
-                        rs.getInt("stock_quantity"),
-                        rs.getDouble("weight"),
-                        rs.getString("image_url"),
-                        rs.getTimestamp("created_at"),
-                        rs.getBoolean("is_available")
-                );
-                products.add(product);
-            }
-        } catch (SQLException e) {
-            System.out.println("Database error while retrieving products: " + e.getMessage());
+    public Product findById(int id) {
+        ProductCache cache = productCache;
+        if (cache != null) {
+            return cache.getProduct(id, this::loadById);
         }
-        return products;
+        return loadById(id);
     }
 
-    public Product findById(int id) {
+    private Product loadById(int id) {
         String sql = "SELECT * FROM products WHERE id = ?";
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("findById");
+             Connection conn = connect(op);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             try (ResultSet rs = pstmt.executeQuery()) {
+                op.succeeded();
                 if (rs.next()) {
-                    return new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock_quantity"),
-                            rs.getDouble("weight"),
-                            rs.getString("image_url"),
-                            rs.getTimestamp("created_at"),
-                            rs.getBoolean("is_available")
-                    );
+                    op.rows(1);
+                    return ProductRowMapper.of(rs).map(rs);
                 }
             }
         } catch (SQLException e) {
@@ -112,9 +504,22 @@ public class ProductRepository {
     }
 
     public void update(Product product) {
+        StockWriteBehind writeBehind = stockWriteBehind;
+        if (writeBehind != null) {
+            // This update carries its own stock quantity, which must not be overwritten by an older pending one
+            writeBehind.cancel(product.getId());
+        }
         String sql = "UPDATE products SET name = ?, description = ?, category = ?, price = ?, stock_quantity = ?, weight = ?, image_url = ?, is_available = ? WHERE id = ?";
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("update");
+             Connection conn = connect(op);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            Integer previousCategoryId = lockCategory(conn, product.getId());
+            if (previousCategoryId == null) {
+                conn.commit();
+                op.succeeded();
+                return;
+            }
             pstmt.setString(1, product.getName());
             pstmt.setString(2, product.getDescription());
             pstmt.setInt(3, product.getCategoryId());
@@ -124,91 +529,90 @@ public class ProductRepository {
             pstmt.setString(7, product.getImageUrl());
             pstmt.setBoolean(8, product.isAvailable());
             pstmt.setInt(9, product.getId());
-            pstmt.executeUpdate();
+            op.rows(pstmt.executeUpdate());
+            conn.commit();
+            op.succeeded();
 
             System.out.println("Product updated: " + product.getName());
+            fireChange(listener -> listener.productUpdated(product, previousCategoryId));
         } catch (SQLException e) {
             System.out.println("Database error while updating product: " + e.getMessage());
         }
     }
 
     public void delete(int id) {
+        StockWriteBehind writeBehind = stockWriteBehind;
+        if (writeBehind != null) {
+            writeBehind.cancel(id);
+        }
         String sql = "DELETE FROM products WHERE id = ?";
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("delete");
+             Connection conn = connect(op);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            Integer previousCategoryId = lockCategory(conn, id);
+            if (previousCategoryId == null) {
+                conn.commit();
+                op.succeeded();
+                return;
+            }
             pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+            op.rows(pstmt.executeUpdate());
+            conn.commit();
+            op.succeeded();
 
             System.out.println("Product deleted with ID: " + id);
+            fireChange(listener -> listener.productDeleted(id, previousCategoryId));
         } catch (SQLException e) {
             System.out.println("Database error while deleting product: " + e.getMessage());
         }
     }
 
-    public List<Product> findByCategory(int categoryId) {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE category = ?";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, categoryId);
+    // Reads the product's category and locks its row until the transaction ends; null if there is no such product
+    private static Integer lockCategory(Connection conn, int productId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT category FROM products WHERE id = ? FOR UPDATE")) {
+            pstmt.setInt(1, productId);
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Product product = new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock_quantity"),
-                            rs.getDouble("weight"),
-                            rs.getString("image_url"),
-                            rs.getTimestamp("created_at"),
-                            rs.getBoolean("is_available")
-                    );
-                    products.add(product);
-                }
+                return rs.next() ? rs.getInt(1) : null;
             }
-        } catch (SQLException e) {
-            System.out.println("Database error while finding products by category: " + e.getMessage());
         }
-        return products;
+    }
+
+    public List<Product> findByCategory(int categoryId) {
+        return findByCategory(categoryId, ProductProjection.FULL);
+    }
+
+    public List<Product> findByCategory(int categoryId, ProductProjection projection) {
+        return queryProducts("findByCategory", "SELECT " + projection.getColumns() + " FROM products WHERE category = ?",
+                pstmt -> pstmt.setInt(1, categoryId), "finding products by category");
     }
 
     public List<Product> findByAvailability(boolean isAvailable) {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE is_available = ?";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setBoolean(1, isAvailable);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Product product = new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock_quantity"),
-                            rs.getDouble("weight"),
-                            rs.getString("image_url"),
-                            rs.getTimestamp("created_at"),
-                            rs.getBoolean("is_available")
-                    );
-                    products.add(product);
-                }
-            }
-        } catch (SQLException e) {
-            System.out.println("Database error while finding products by availability: " + e.getMessage());
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot != null) {
+            return snapshot.findByAvailability(isAvailable);
         }
-        return products;
+        return findByAvailability(isAvailable, ProductProjection.FULL);
+    }
+
+    public List<Product> findByAvailability(boolean isAvailable, ProductProjection projection) {
+        return queryProducts("findByAvailability", "SELECT " + projection.getColumns() + " FROM products WHERE is_available = ?",
+                pstmt -> pstmt.setBoolean(1, isAvailable), "finding products by availability");
     }
 
     public int countProducts() {
+        ProductCounters counters = productCounters;
+        if (counters != null) {
+            return counters.getTotal();
+        }
         String sql = "SELECT COUNT(*) FROM products";
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("countProducts");
+             Connection conn = connect(op);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
+            op.succeeded();
             if (rs.next()) {
+                op.rows(1);
                 return rs.getInt(1);
             }
         } catch (SQLException e) {
@@ -218,166 +622,321 @@ public class ProductRepository {
     }
 
     public List<Product> findByPriceRange(double minPrice, double maxPrice) {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE price BETWEEN ? AND ?";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot != null) {
+            return snapshot.findByPriceRange(minPrice, maxPrice);
+        }
+        return queryProducts("findByPriceRange", "SELECT * FROM products WHERE price BETWEEN ? AND ?", pstmt -> {
             pstmt.setDouble(1, minPrice);
             pstmt.setDouble(2, maxPrice);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Product product = new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock_quantity"),
-                            rs.getDouble("weight"),
-                            rs.getString("image_url"),
-                            rs.getTimestamp("created_at"),
-                            rs.getBoolean("is_available")
-                    );
-                    products.add(product);
-                }
-            }
-        } catch (SQLException e) {
-            System.out.println("Database error while finding products by price range: " + e.getMessage());
+        }, "finding products by price range");
+    }
+
+    /**
+     * Ranked multi-term search over names and descriptions. Uses the search index when it is enabled;
+     * otherwise falls back to a substring match on the name.
+     */
+    public List<Product> search(String query, int limit) {
+        ProductSearchIndex index = searchIndex;
+        if (index != null) {
+            return index.search(query, limit);
         }
-        return products;
+        List<Product> products = searchByName(query);
+        return products.size() > limit ? new ArrayList<>(products.subList(0, limit)) : products;
     }
 
     public List<Product> searchByName(String name) {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE name LIKE ?";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + name + "%");
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Product product = new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock_quantity"),
-                            rs.getDouble("weight"),
-                            rs.getString("image_url"),
-                            rs.getTimestamp("created_at"),
-                            rs.getBoolean("is_available")
-                    );
-                    products.add(product);
+        return queryProducts("searchByName", "SELECT * FROM products WHERE name LIKE ?",
+                pstmt -> pstmt.setString(1, "%" + name + "%"), "searching products by name");
+    }
+
+    public List<Product> findRecent(int limit) {
+        return findRecent(limit, ProductProjection.FULL);
+    }
+
+    public List<Product> findRecent(int limit, ProductProjection projection) {
+        return queryProducts("findRecent", "SELECT " + projection.getColumns() + " FROM products ORDER BY created_at DESC LIMIT ?",
+                pstmt -> pstmt.setInt(1, limit), "finding recent products");
+    }
+
+    // Keyset pagination: each page seeks past the last row of the previous one instead of using OFFSET,
+    // so deep pages cost the same as the first. Pass a null cursor to start from the beginning.
+
+    public Page<Product> findPage(ProductSortOrder order, String cursor, int pageSize) {
+        return findPage(order, cursor, pageSize, ProductProjection.FULL);
+    }
+
+    public Page<Product> findPage(ProductSortOrder order, String cursor, int pageSize, ProductProjection projection) {
+        return findPage(null, pstmt -> {}, order, cursor, pageSize, projection);
+    }
+
+    public Page<Product> findPageByCategory(int categoryId, ProductSortOrder order, String cursor, int pageSize) {
+        return findPageByCategory(categoryId, order, cursor, pageSize, ProductProjection.FULL);
+    }
+
+    public Page<Product> findPageByCategory(int categoryId, ProductSortOrder order, String cursor, int pageSize,
+                                            ProductProjection projection) {
+        return findPage("category = ?", pstmt -> pstmt.setInt(1, categoryId), order, cursor, pageSize, projection);
+    }
+
+    private Page<Product> findPage(String filter, StatementBinder filterBinder, ProductSortOrder order,
+                                   String cursor, int pageSize, ProductProjection projection) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        ProductCursor after = cursor == null ? null : ProductCursor.decode(order, cursor);
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(projection.getColumns()).append(" FROM products");
+        if (filter != null || after != null) {
+            sql.append(" WHERE ");
+            if (filter != null) {
+                sql.append(filter);
+                if (after != null) {
+                    sql.append(" AND ");
                 }
             }
-        } catch (SQLException e) {
-            System.out.println("Database error while searching products by name: " + e.getMessage());
+            if (after != null) {
+                sql.append(order.getSeekCondition());
+            }
         }
-        return products;
-    }
+        sql.append(" ORDER BY ").append(order.getOrderBy()).append(" LIMIT ?");
 
-    public List<Product> findRecent(int limit) {
         List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products ORDER BY created_at DESC LIMIT ?";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, limit);
+        try (RepositoryMetrics.Operation op = begin("findPage");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            filterBinder.bind(pstmt);
+            int index = filter != null ? 2 : 1;
+            if (after != null) {
+                index = after.bind(pstmt, index);
+            }
+            // One extra row tells us whether another page follows
+            pstmt.setInt(index, pageSize + 1);
             try (ResultSet rs = pstmt.executeQuery()) {
+                ProductRowMapper mapper = ProductRowMapper.of(rs);
                 while (rs.next()) {
-                    Product product = new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock_quantity"),
-                            rs.getDouble("weight"),
-                            rs.getString("image_url"),
-                            rs.getTimestamp("created_at"),
-                            rs.getBoolean("is_available")
-                    );
-                    products.add(product);
+                    products.add(mapper.map(rs));
                 }
             }
+            op.rows(products.size());
+            op.succeeded();
         } catch (SQLException e) {
-            System.out.println("Database error while finding recent products: " + e.getMessage());
+            System.out.println("Database error while finding a page of products: " + e.getMessage());
+            return new Page<>(new ArrayList<>(), null);
         }
-        return products;
+
+        String nextCursor = null;
+        if (products.size() > pageSize) {
+            products.remove(pageSize);
+            nextCursor = ProductCursor.encode(order, products.get(pageSize - 1));
+        }
+        return new Page<>(products, nextCursor);
     }
 
     public List<Product> findLowStock(int threshold) {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE stock_quantity < ?";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, threshold);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Product product = new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock_quantity"),
-                            rs.getDouble("weight"),
-                            rs.getString("image_url"),
-                            rs.getTimestamp("created_at"),
-                            rs.getBoolean("is_available")
-                    );
-                    products.add(product);
-                }
-            }
-        } catch (SQLException e) {
-            System.out.println("Database error while finding products with low stock: " + e.getMessage());
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot != null) {
+            return snapshot.findLowStock(threshold);
         }
-        return products;
+        return queryProducts("findLowStock", "SELECT * FROM products WHERE stock_quantity < ?",
+                pstmt -> pstmt.setInt(1, threshold), "finding products with low stock");
     }
 
     public void saveAll(List<Product> products) {
-        String sql = "INSERT INTO products (name, description, category, price, stock_quantity, weight, image_url, is_available) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            for (Product product : products) {
-                pstmt.setString(1, product.getName());
-                pstmt.setString(2, product.getDescription());
-                pstmt.setInt(3, product.getCategoryId());
-                pstmt.setDouble(4, product.getPrice());
-                pstmt.setInt(5, product.getStockQuantity());
-                pstmt.setDouble(6, product.getWeight());
-                pstmt.setString(7, product.getImageUrl());
-                pstmt.setBoolean(8, product.isAvailable());
-                pstmt.addBatch();
-            }
-            pstmt.executeBatch();
+        BulkInsertReport report = saveAll(products, DEFAULT_INSERT_CHUNK_SIZE);
+        if (report.isSuccessful()) {
             System.out.println("All products saved successfully.");
+        }
+    }
+
+    /**
+     * Inserts the products in chunks of {@code chunkSize}, each chunk in its own transaction.
+     * Generated ids are written back onto the products of every committed chunk.
+     * A failed chunk is rolled back and reported, and the remaining chunks are still attempted. If the
+     * connection itself fails, every chunk not committed by then is reported as failed.
+     */
+    public BulkInsertReport saveAll(List<Product> products, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        String sql = "INSERT INTO products (name, description, category, price, stock_quantity, weight, image_url, is_available) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        BulkInsertReport report = new BulkInsertReport(products.size());
+        long start = System.nanoTime();
+        // Start of the next chunk to attempt, kept outside the try so abandoned chunks can be reported
+        int from = 0;
+        int index = 0;
+
+        try (RepositoryMetrics.Operation op = begin("saveAll");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            conn.setAutoCommit(false);
+            for (; from < products.size(); from += chunkSize, index++) {
+                List<Product> chunk = products.subList(from, Math.min(products.size(), from + chunkSize));
+                long chunkStart = System.nanoTime();
+                try {
+                    for (Product product : chunk) {
+                        pstmt.setString(1, product.getName());
+                        pstmt.setString(2, product.getDescription());
+                        pstmt.setInt(3, product.getCategoryId());
+                        pstmt.setDouble(4, product.getPrice());
+                        pstmt.setInt(5, product.getStockQuantity());
+                        pstmt.setDouble(6, product.getWeight());
+                        pstmt.setString(7, product.getImageUrl());
+                        pstmt.setBoolean(8, product.isAvailable());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                    int[] ids = new int[chunk.size()];
+                    try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                        for (int i = 0; i < ids.length && keys.next(); i++) {
+                            ids[i] = keys.getInt(1);
+                        }
+                    }
+                    conn.commit();
+                    op.rows(chunk.size());
+                    // Only hand out ids once they are durable
+                    for (int i = 0; i < ids.length; i++) {
+                        chunk.get(i).setId(ids[i]);
+                    }
+                    report.addChunk(new BulkInsertReport.ChunkResult(index, chunk.size(), System.nanoTime() - chunkStart, null));
+                } catch (SQLException e) {
+                    conn.rollback();
+                    pstmt.clearBatch();
+                    report.addChunk(new BulkInsertReport.ChunkResult(index, chunk.size(), System.nanoTime() - chunkStart, e.getMessage()));
+                    System.out.println("Database error while saving products (chunk " + index + "): " + e.getMessage());
+                    continue;
+                }
+                for (Product product : chunk) {
+                    fireChange(listener -> listener.productSaved(product));
+                }
+            }
+            if (report.isSuccessful()) {
+                op.succeeded();
+            }
         } catch (SQLException e) {
             System.out.println("Database error while saving products: " + e.getMessage());
+            for (; from < products.size(); from += chunkSize, index++) {
+                int rows = Math.min(products.size(), from + chunkSize) - from;
+                report.addChunk(new BulkInsertReport.ChunkResult(index, rows, 0, e.getMessage()));
+            }
         }
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
     }
 
     public void updateStock(int productId, int newStockQuantity) {
+        StockWriteBehind writeBehind = stockWriteBehind;
+        if (writeBehind != null) {
+            writeBehind.submit(productId, newStockQuantity);
+            return;
+        }
         String sql = "UPDATE products SET stock_quantity = ? WHERE id = ?";
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("updateStock");
+             Connection conn = connect(op);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, newStockQuantity);
             pstmt.setInt(2, productId);
-            pstmt.executeUpdate();
+            op.rows(pstmt.executeUpdate());
+            op.succeeded();
             System.out.println("Stock quantity updated for product ID: " + productId);
+            fireChange(listener -> listener.stockUpdated(productId, newStockQuantity));
         } catch (SQLException e) {
             System.out.println("Database error while updating stock quantity: " + e.getMessage());
         }
     }
 
+    /**
+     * Reserves stock with a conditional decrement, so concurrent checkouts cannot oversell. Reservations for
+     * the same product are combined in process first; see {@link StockReservations}.
+     */
+    public boolean reserveStock(int productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        boolean reserved;
+        try {
+            flushPendingStock(productId);
+            reserved = stockReservations.reserve(productId, quantity);
+        } catch (SQLException e) {
+            System.out.println("Database error while reserving stock: " + e.getMessage());
+            return false;
+        }
+        if (reserved) {
+            fireChange(listener -> listener.stockAdjusted(productId, -quantity));
+        }
+        return reserved;
+    }
+
+    private boolean decrementStock(int productId, int quantity) throws SQLException {
+        String sql = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+        try (RepositoryMetrics.Operation op = begin("reserveStock");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, quantity);
+            pstmt.setInt(2, productId);
+            pstmt.setInt(3, quantity);
+            int rows = pstmt.executeUpdate();
+            op.rows(rows);
+            op.succeeded();
+            return rows == 1;
+        }
+    }
+
+    public void releaseStock(int productId, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        String sql = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+        try {
+            flushPendingStock(productId);
+        } catch (SQLException e) {
+            System.out.println("Database error while releasing stock: " + e.getMessage());
+            return;
+        }
+        try (RepositoryMetrics.Operation op = begin("releaseStock");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, quantity);
+            pstmt.setInt(2, productId);
+            int rows = pstmt.executeUpdate();
+            op.rows(rows);
+            op.succeeded();
+            if (rows == 1) {
+                fireChange(listener -> listener.stockAdjusted(productId, quantity));
+            }
+        } catch (SQLException e) {
+            System.out.println("Database error while releasing stock: " + e.getMessage());
+        }
+    }
+
+    // A buffered absolute quantity written after a relative change would undo it
+    private void flushPendingStock(int productId) throws SQLException {
+        StockWriteBehind writeBehind = stockWriteBehind;
+        if (writeBehind != null) {
+            writeBehind.flush(productId);
+        }
+    }
+
+    public StockReservations getStockReservations() {
+        return stockReservations;
+    }
+
     public Map<Integer, Integer> countProductsByCategory() {
+        ProductCounters counters = productCounters;
+        if (counters != null) {
+            return new HashMap<>(counters.getCountsByCategory());
+        }
         Map<Integer, Integer> categoryCounts = new HashMap<>();
         String sql = "SELECT category, COUNT(*) AS count FROM products GROUP BY category";
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("countProductsByCategory");
+             Connection conn = connect(op);
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 categoryCounts.put(rs.getInt("category"), rs.getInt("count"));
             }
+            op.rows(categoryCounts.size());
+            op.succeeded();
         } catch (SQLException e) {
             System.out.println("Database error while counting products by category: " + e.getMessage());
         }
@@ -385,43 +944,202 @@ public class ProductRepository {
     }
 
     public List<Product> findByWeightRange(double minWeight, double maxWeight) {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE weight BETWEEN ? AND ?";
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        CatalogSnapshot snapshot = catalogSnapshot;
+        if (snapshot != null) {
+            return snapshot.findByWeightRange(minWeight, maxWeight);
+        }
+        return queryProducts("findByWeightRange", "SELECT * FROM products WHERE weight BETWEEN ? AND ?", pstmt -> {
             pstmt.setDouble(1, minWeight);
             pstmt.setDouble(2, maxWeight);
+        }, "finding products by weight range");
+    }
+
+    // Streaming variants of the list queries.
+    // Rows are fetched from a server-side cursor in chunks of getStreamFetchSize(), so memory stays constant
+    // regardless of the result size. The stream holds a pooled connection until it is exhausted or closed,
+    // so always consume it in a try-with-resources block.
+
+    public Stream<Product> streamAll() {
+        return streamProducts("streamAll", "SELECT * FROM products", pstmt -> {}, "streaming products");
+    }
+
+    public Stream<Product> streamByCategory(int categoryId) {
+        return streamProducts("streamByCategory", "SELECT * FROM products WHERE category = ?",
+                pstmt -> pstmt.setInt(1, categoryId), "streaming products by category");
+    }
+
+    public Stream<Product> streamByAvailability(boolean isAvailable) {
+        return streamProducts("streamByAvailability", "SELECT * FROM products WHERE is_available = ?",
+                pstmt -> pstmt.setBoolean(1, isAvailable), "streaming products by availability");
+    }
+
+    public Stream<Product> streamByPriceRange(double minPrice, double maxPrice) {
+        return streamProducts("streamByPriceRange", "SELECT * FROM products WHERE price BETWEEN ? AND ?", pstmt -> {
+            pstmt.setDouble(1, minPrice);
+            pstmt.setDouble(2, maxPrice);
+        }, "streaming products by price range");
+    }
+
+    public Stream<Product> streamByWeightRange(double minWeight, double maxWeight) {
+        return streamProducts("streamByWeightRange", "SELECT * FROM products WHERE weight BETWEEN ? AND ?", pstmt -> {
+            pstmt.setDouble(1, minWeight);
+            pstmt.setDouble(2, maxWeight);
+        }, "streaming products by weight range");
+    }
+
+    public Stream<Product> streamLowStock(int threshold) {
+        return streamProducts("streamLowStock", "SELECT * FROM products WHERE stock_quantity < ?",
+                pstmt -> pstmt.setInt(1, threshold), "streaming products with low stock");
+    }
+
+    // Visits every product without materializing the catalog; the connection is released when this returns
+    public void forEachProduct(Consumer<? super Product> visitor) {
+        try (Stream<Product> products = streamAll()) {
+            products.forEach(visitor);
+        }
+    }
+
+    /**
+     * Streams the catalog from a server-side cursor straight into the channel, column by column, without
+     * building {@link Product} objects. Unlike the other queries a database error is thrown rather than
+     * logged, so that a truncated feed cannot pass for a complete one.
+     */
+    public ExportReport exportCatalog(WritableByteChannel channel, ImportFormat format, boolean gzip) throws IOException {
+        long start = System.nanoTime();
+        CatalogWriter writer = new CatalogWriter(channel, format, gzip);
+        String sql = "SELECT id, name, description, category, price, stock_quantity, weight, image_url, created_at, "
+                + "is_available FROM products";
+        try (RepositoryMetrics.Operation op = begin("exportCatalog");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(streamFetchSize);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Product product = new Product(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("category"),
-                            rs.getDouble("price"),
-                            rs.getInt("stock_quantity"),
-                            rs.getDouble("weight"),
-                            rs.getString("image_url"),
-                            rs.getTimestamp("created_at"),
-                            rs.getBoolean("is_available")
-                    );
-                    products.add(product);
+                    writer.write(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getInt(4), rs.getDouble(5),
+                            rs.getInt(6), rs.getDouble(7), rs.getString(8), rs.getTimestamp(9), rs.getBoolean(10));
                 }
             }
+            writer.finish();
+            op.rows(writer.getRowCount());
+            op.succeeded();
+        } catch (SQLException e) {
+            throw new IOException("Database error while exporting products: " + e.getMessage(), e);
+        }
+        return new ExportReport(writer.getRowCount(), writer.getBytesWritten(), System.nanoTime() - start);
+    }
+
+    private Stream<Product> streamProducts(String operation, String sql, StatementBinder binder, String description) {
+        RepositoryMetrics.Operation op = begin(operation);
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = connect(op);
+            // The three-argument prepareStatement bypasses the statement cache, so the fetch size stays local
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(streamFetchSize);
+            binder.bind(pstmt);
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(rs, pstmt, conn, op);
+            System.out.println("Database error while " + description + ": " + e.getMessage());
+            return Stream.empty();
+        }
+
+        Connection connection = conn;
+        PreparedStatement statement = pstmt;
+        ResultSet results = rs;
+        ProductRowMapper mapper;
+        try {
+            mapper = ProductRowMapper.of(rs);
         } catch (SQLException e) {
-            System.out.println("Database error while finding products by weight range: " + e.getMessage());
+            closeQuietly(rs, pstmt, conn, op);
+            System.out.println("Database error while " + description + ": " + e.getMessage());
+            return Stream.empty();
+        }
+        // The operation spans the whole iteration and ends when the connection is released;
+        // closing the stream early is not an error
+        op.succeeded();
+        Runnable release = () -> closeQuietly(results, statement, connection, op);
+
+        Spliterator<Product> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Product> action) {
+                try {
+                    if (!results.next()) {
+                        // Hand the connection back as soon as the cursor is exhausted
+                        release.run();
+                        return false;
+                    }
+                    op.rows(1);
+                    action.accept(mapper.map(results));
+                    return true;
+                } catch (SQLException e) {
+                    op.failed();
+                    release.run();
+                    throw new IllegalStateException("Database error while " + description + ": " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(release);
+    }
+
+    private List<Product> queryProducts(String operation, String sql, StatementBinder binder, String description) {
+        List<Product> products = new ArrayList<>();
+        try (RepositoryMetrics.Operation op = begin(operation);
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            binder.bind(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ProductRowMapper mapper = ProductRowMapper.of(rs);
+                while (rs.next()) {
+                    products.add(mapper.map(rs));
+                }
+            }
+            op.rows(products.size());
+            op.succeeded();
+        } catch (SQLException e) {
+            System.out.println("Database error while " + description + ": " + e.getMessage());
         }
         return products;
     }
 
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception ignored) {
+                // Nothing useful to do if releasing a resource fails
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement pstmt) throws SQLException;
+    }
+
 
     public ProductDetail getProductDetails(int productId) {
+        ProductCache cache = productCache;
+        if (cache != null) {
+            return cache.getProductDetails(productId, this::loadProductDetails);
+        }
+        return loadProductDetails(productId);
+    }
+
+    private ProductDetail loadProductDetails(int productId) {
         ProductDetail productDetail = null;
         String sqlProduct = "SELECT p.*, pc.name AS category_name FROM products p " +
                 "JOIN product_category pc ON p.category = pc.id WHERE p.id = ?";
         String sqlReviews = "SELECT * FROM review WHERE product = ?";
 
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("getProductDetails");
+             Connection conn = connect(op);
              PreparedStatement pstmtProduct = conn.prepareStatement(sqlProduct);
              PreparedStatement pstmtReviews = conn.prepareStatement(sqlReviews)) {
 
@@ -429,18 +1147,7 @@ public class ProductRepository {
             pstmtProduct.setInt(1, productId);
             try (ResultSet rsProduct = pstmtProduct.executeQuery()) {
                 if (rsProduct.next()) {
-                    Product product = new Product(
-                            rsProduct.getInt("id"),
-                            rsProduct.getString("name"),
-                            rsProduct.getString("description"),
-                            rsProduct.getInt("category"),
-                            rsProduct.getDouble("price"),
-                            rsProduct.getInt("stock_quantity"),
-                            rsProduct.getDouble("weight"),
-                            rsProduct.getString("image_url"),
-                            rsProduct.getTimestamp("created_at"),
-                            rsProduct.getBoolean("is_available")
-                    );
+                    Product product = ProductRowMapper.of(rsProduct).map(rsProduct);
                     String categoryName = rsProduct.getString("category_name");
                     productDetail = new ProductDetail(product, categoryName);
                 }
@@ -451,19 +1158,15 @@ public class ProductRepository {
             try (ResultSet rsReviews = pstmtReviews.executeQuery()) {
                 List<Review> reviews = new ArrayList<>();
                 while (rsReviews.next()) {
-                    Review review = new Review(
-                            rsReviews.getInt("revId"),
-                            rsReviews.getInt("product"),
-                            rsReviews.getInt("star"),
-                            rsReviews.getString("description"),
-                            rsReviews.getTimestamp("created_at")
-                    );
-                    reviews.add(review);
+                    reviews.add(mapReview(rsReviews));
                 }
                 if (productDetail != null) {
                     productDetail.setReviews(reviews);
+                    productDetail.setRatingSummary(RatingSummary.of(reviews));
+                    op.rows(1 + reviews.size());
                 }
             }
+            op.succeeded();
 
         } catch (SQLException e) {
             System.out.println("Database error while fetching product details: " + e.getMessage());
@@ -471,21 +1174,247 @@ public class ProductRepository {
         return productDetail;
     }
 
+    /**
+     * Loads the details of many products at once: two queries per 512 distinct ids, however many reviews there are.
+     * Results follow the order of the requested ids; ids without a product are skipped.
+     */
+    public List<ProductDetail> getProductDetails(Collection<Integer> productIds) {
+        Set<Integer> ids = new LinkedHashSet<>(productIds);
+        ProductCache cache = productCache;
+        Map<Integer, ProductDetail> loaded = cache != null
+                ? cache.getProductDetails(ids, this::loadProductDetails)
+                : loadProductDetails(ids);
+
+        List<ProductDetail> details = new ArrayList<>(loaded.size());
+        for (Integer id : ids) {
+            ProductDetail detail = loaded.get(id);
+            if (detail != null) {
+                details.add(detail);
+            }
+        }
+        return details;
+    }
+
+    private Map<Integer, ProductDetail> loadProductDetails(Set<Integer> productIds) {
+        Map<Integer, ProductDetail> details = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return details;
+        }
+        List<Integer> ids = new ArrayList<>(productIds);
+
+        try (RepositoryMetrics.Operation op = begin("getProductDetailsBatch");
+             Connection conn = connect(op)) {
+            for (int from = 0; from < ids.size(); from += MAX_IN_LIST_SIZE) {
+                List<Integer> batch = ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST_SIZE));
+                int inListSize = inListSize(batch.size());
+                String inList = inListPlaceholders(inListSize);
+
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "SELECT p.*, pc.name AS category_name FROM products p " +
+                                "JOIN product_category pc ON p.category = pc.id WHERE p.id IN " + inList)) {
+                    bindInList(pstmt, batch, inListSize);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        ProductRowMapper mapper = ProductRowMapper.of(rs);
+                        while (rs.next()) {
+                            Product product = mapper.map(rs);
+                            details.put(product.getId(), new ProductDetail(product, rs.getString("category_name")));
+                            op.rows(1);
+                        }
+                    }
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM review WHERE product IN " + inList)) {
+                    bindInList(pstmt, batch, inListSize);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Review review = mapReview(rs);
+                            ProductDetail detail = details.get(review.getProduct());
+                            if (detail != null) {
+                                detail.getReviews().add(review);
+                                op.rows(1);
+                            }
+                        }
+                    }
+                }
+            }
+            op.succeeded();
+        } catch (SQLException e) {
+            System.out.println("Database error while fetching product details: " + e.getMessage());
+            return new HashMap<>();
+        }
+        for (ProductDetail detail : details.values()) {
+            detail.setRatingSummary(RatingSummary.of(detail.getReviews()));
+        }
+        return details;
+    }
+
+    /**
+     * Loads the product with its rating summary and only the newest {@code reviewPageSize} reviews; pass
+     * {@link ProductDetail#getNextReviewCursor()} to {@link #findReviews} for more.
+     */
+    public ProductDetail getProductDetails(int productId, int reviewPageSize) {
+        String sql = "SELECT p.*, pc.name AS category_name FROM products p " +
+                "JOIN product_category pc ON p.category = pc.id WHERE p.id = ?";
+        ProductDetail productDetail = null;
+
+        try (RepositoryMetrics.Operation op = begin("getProductDetailsPaged");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    productDetail = new ProductDetail(ProductRowMapper.of(rs).map(rs), rs.getString("category_name"));
+                    op.rows(1);
+                }
+            }
+            op.succeeded();
+        } catch (SQLException e) {
+            System.out.println("Database error while fetching product details: " + e.getMessage());
+        }
+        if (productDetail == null) {
+            return null;
+        }
+
+        Page<Review> reviews = findReviews(productId, null, reviewPageSize);
+        productDetail.setReviews(new ArrayList<>(reviews.getItems()));
+        productDetail.setNextReviewCursor(reviews.getNextCursor());
+        productDetail.setRatingSummary(getRatingSummary(productId));
+        return productDetail;
+    }
+
+    public RatingSummary getRatingSummary(int productId) {
+        RatingSummaries summaries = ratingSummaries;
+        if (summaries != null) {
+            return summaries.get(productId, this::loadRatingSummary);
+        }
+        RatingSummary summary = loadRatingSummary(productId);
+        return summary != null ? summary : RatingSummary.EMPTY;
+    }
+
+    // Returns null if the database could not be read, so the failure is not cached
+    private RatingSummary loadRatingSummary(int productId) {
+        String sql = "SELECT star, COUNT(*) FROM review WHERE product = ? GROUP BY star";
+        int[] starCounts = new int[5];
+
+        try (RepositoryMetrics.Operation op = begin("getRatingSummary");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, productId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int star = rs.getInt(1);
+                    if (RatingSummary.isValidStar(star)) {
+                        starCounts[star - 1] = rs.getInt(2);
+                    }
+                }
+            }
+            op.succeeded();
+        } catch (SQLException e) {
+            System.out.println("Database error while summarising reviews: " + e.getMessage());
+            return null;
+        }
+        return RatingSummary.of(starCounts);
+    }
+
+    /**
+     * One page of a product's reviews, newest first. With an index on {@code review (product, revId)} each
+     * page is a single range read, however deep into the reviews it is.
+     */
+    public Page<Review> findReviews(int productId, String cursor, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        Integer afterRevId = cursor == null ? null : ReviewCursor.decode(productId, cursor);
+        String sql = "SELECT * FROM review WHERE product = ?" + (afterRevId != null ? " AND revId < ?" : "") +
+                " ORDER BY revId DESC LIMIT ?";
+
+        List<Review> reviews = new ArrayList<>();
+        try (RepositoryMetrics.Operation op = begin("findReviews");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            pstmt.setInt(index++, productId);
+            if (afterRevId != null) {
+                pstmt.setInt(index++, afterRevId);
+            }
+            // One extra row tells us whether another page follows
+            pstmt.setInt(index, pageSize + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    reviews.add(mapReview(rs));
+                }
+            }
+            op.rows(reviews.size());
+            op.succeeded();
+        } catch (SQLException e) {
+            System.out.println("Database error while finding a page of reviews: " + e.getMessage());
+            return new Page<>(new ArrayList<>(), null);
+        }
+
+        String nextCursor = null;
+        if (reviews.size() > pageSize) {
+            reviews.remove(pageSize);
+            nextCursor = ReviewCursor.encode(productId, reviews.get(pageSize - 1));
+        }
+        return new Page<>(reviews, nextCursor);
+    }
+
+    // IN lists are padded to a power of two so only a handful of distinct SQL strings reach the statement cache
+    private static int inListSize(int count) {
+        return count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+    }
+
+    private static String inListPlaceholders(int size) {
+        StringBuilder placeholders = new StringBuilder("(");
+        for (int i = 0; i < size; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        return placeholders.append(")").toString();
+    }
+
+    // Binds the ids, repeating the last one to fill the padding
+    private static void bindInList(PreparedStatement pstmt, List<Integer> ids, int size) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            pstmt.setInt(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+        }
+    }
+
+    private static Review mapReview(ResultSet rs) throws SQLException {
+        return new Review(
+                rs.getInt("revId"),
+                rs.getInt("product"),
+                rs.getInt("star"),
+                rs.getString("description"),
+                rs.getTimestamp("created_at")
+        );
+    }
+
     public void addReview(int productId, int star, String description) {
         String sql = "INSERT INTO review (product, star, description) VALUES (?, ?, ?)";
+        RatingSummaries summaries = ratingSummaries;
+        if (summaries != null) {
+            summaries.beginReview(productId);
+        }
 
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("addReview");
+             Connection conn = connect(op);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, productId);
             pstmt.setInt(2, star);
             pstmt.setString(3, description);
-            pstmt.executeUpdate();
+            op.rows(pstmt.executeUpdate());
+            op.succeeded();
 
             System.out.println("Review added for product ID: " + productId);
+            fireChange(listener -> listener.reviewAdded(productId, star));
 
         } catch (SQLException e) {
             System.out.println("Database error while adding review: " + e.getMessage());
+        } finally {
+            if (summaries != null) {
+                summaries.endReview(productId);
+            }
         }
     }
 
@@ -493,57 +1422,85 @@ public class ProductRepository {
     public void addProductToFeatured(int productId, Timestamp fromDate, Timestamp toDate) {
         String sql = "INSERT INTO featured_product (id, `from`, `to`) VALUES (?, ?, ?)";
 
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("addProductToFeatured");
+             Connection conn = connect(op);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, productId);
             pstmt.setTimestamp(2, fromDate);
             pstmt.setTimestamp(3, toDate);
-            pstmt.executeUpdate();
+            op.rows(pstmt.executeUpdate());
+            op.succeeded();
 
             System.out.println("Product ID " + productId + " added to featured list from " + fromDate + " to " + toDate);
+            fireChange(listener -> listener.featuredAdded(productId, fromDate, toDate));
 
         } catch (SQLException e) {
             System.out.println("Database error while adding product to featured list: " + e.getMessage());
         }
     }
 
-    // Overloaded method for Product object
-    public void addProductToFeatured(Product product, Timestamp fromDate, Timestamp toDate) {
-        addProductToFeatured(product.getId(), fromDate, toDate);
-    }
-
     public void removeProductFromFeatured(int productId) {
         String sql = "DELETE FROM featured_product WHERE id = ?";
 
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("removeProductFromFeatured");
+             Connection conn = connect(op);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, productId);
-            pstmt.executeUpdate();
+            op.rows(pstmt.executeUpdate());
+            op.succeeded();
 
             System.out.println("Product ID " + productId + " removed from featured list");
+            fireChange(listener -> listener.featuredRemoved(productId));
 
         } catch (SQLException e) {
             System.out.println("Database error while removing product from featured list: " + e.getMessage());
         }
     }
 
-    public void removeProductFromFeatured(Product product) {
-        removeProductFromFeatured(product.getId());
+    public List<Product> findFeatured(Instant at) {
+        FeaturedIndex index = featuredIndex;
+        // The index drops windows once they end, so older instants still go to the table
+        if (index != null && !at.isBefore(index.getPrunedUntil())) {
+            return index.findFeatured(at);
+        }
+        String sql = "SELECT DISTINCT p.* FROM products p JOIN featured_product f ON f.id = p.id " +
+                "WHERE (f.`from` IS NULL OR f.`from` <= ?) AND (f.`to` IS NULL OR f.`to` > ?) ORDER BY p.id";
+        Timestamp timestamp = Timestamp.from(at);
+        return queryProducts("findFeatured", sql, pstmt -> {
+            pstmt.setTimestamp(1, timestamp);
+            pstmt.setTimestamp(2, timestamp);
+        }, "finding featured products");
+    }
+
+    // With the featured index enabled this is a single volatile read, kept current by its timer
+    public List<Product> findFeatured() {
+        FeaturedIndex index = featuredIndex;
+        return index != null ? index.getCurrent() : findFeatured(Instant.now());
     }
 
     public void createCategory(String name, String description) {
         String sql = "INSERT INTO product_category (name, description) VALUES (?, ?)";
 
-        try (Connection conn = connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (RepositoryMetrics.Operation op = begin("createCategory");
+             Connection conn = connect(op);
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             pstmt.setString(1, name);
             pstmt.setString(2, description);
-            pstmt.executeUpdate();
+            op.rows(pstmt.executeUpdate());
+            int categoryId = 0;
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    categoryId = keys.getInt(1);
+                }
+            }
+            op.succeeded();
 
             System.out.println("Category created: " + name);
+            int createdId = categoryId;
+            fireChange(listener -> listener.categoryCreated(createdId, name));
 
         } catch (SQLException e) {
             System.out.println("Database error while creating category: " + e.getMessage());
@@ -553,13 +1510,16 @@ public class ProductRepository {
     public void deleteCategory(int categoryId) {
         String sql = "DELETE FROM product_category WHERE id = ?";
 
-        try (Connection conn = connect();
+        try (RepositoryMetrics.Operation op = begin("deleteCategory");
+             Connection conn = connect(op);
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setInt(1, categoryId);
-            pstmt.executeUpdate();
+            op.rows(pstmt.executeUpdate());
+            op.succeeded();
 
             System.out.println("Category ID " + categoryId + " deleted");
+            fireChange(listener -> listener.categoryDeleted(categoryId));
 
         } catch (SQLException e) {
             System.out.println("Database error while deleting category: " + e.getMessage());
@@ -0,0 +1,66 @@
+package com.keqing.model;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Maps rows of a {@code products} result set to {@link Product} objects.
+ * Column positions are resolved once per result set, so each row is read by index rather than by label.
+ * Columns missing from the result set (see {@link ProductProjection}) are left at their default value.
+ */
+final class ProductRowMapper {
+
+    private final int id;
+    private final int name;
+    private final int description;
+    private final int category;
+    private final int price;
+    private final int stockQuantity;
+    private final int weight;
+    private final int imageUrl;
+    private final int createdAt;
+    private final int isAvailable;
+
+    private ProductRowMapper(ResultSetMetaData metaData) throws SQLException {
+        this.id = indexOf(metaData, "id");
+        this.name = indexOf(metaData, "name");
+        this.description = indexOf(metaData, "description");
+        this.category = indexOf(metaData, "category");
+        this.price = indexOf(metaData, "price");
+        this.stockQuantity = indexOf(metaData, "stock_quantity");
+        this.weight = indexOf(metaData, "weight");
+        this.imageUrl = indexOf(metaData, "image_url");
+        this.createdAt = indexOf(metaData, "created_at");
+        this.isAvailable = indexOf(metaData, "is_available");
+    }
+
+    static ProductRowMapper of(ResultSet rs) throws SQLException {
+        return new ProductRowMapper(rs.getMetaData());
+    }
+
+    // Returns the first column with the given label, or 0 if the result set does not have it
+    private static int indexOf(ResultSetMetaData metaData, String label) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if (metaData.getColumnLabel(i).equalsIgnoreCase(label)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    Product map(ResultSet rs) throws SQLException {
+        return new Product(
+                id > 0 ? rs.getInt(id) : 0,
+                name > 0 ? rs.getString(name) : null,
+                description > 0 ? rs.getString(description) : null,
+                category > 0 ? rs.getInt(category) : 0,
+                price > 0 ? rs.getDouble(price) : 0,
+                stockQuantity > 0 ? rs.getInt(stockQuantity) : 0,
+                weight > 0 ? rs.getDouble(weight) : 0,
+                imageUrl > 0 ? rs.getString(imageUrl) : null,
+                createdAt > 0 ? rs.getTimestamp(createdAt) : null,
+                isAvailable > 0 && rs.getBoolean(isAvailable)
+        );
+    }
+}
@@ -0,0 +1,274 @@
+package com.keqing.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product names and descriptions.
+ * Text is split into case-folded word tokens. Query terms match a token exactly, as a prefix, or anywhere
+ * inside it. Infix matches are found through a trigram index over the vocabulary, so partial words work
+ * without scanning every token. All terms of a query must match. Results are ranked by where and how
+ * well the terms matched: name hits outweigh description hits, and exact hits outweigh partial ones.
+ * The index keeps itself current by listening to the repository's writes.
+ * It holds its own copy of every product; returned products are shared and must be treated as read-only.
+ * The index never changes a product it has handed out, it replaces it with a new copy instead.
+ */
+public class ProductSearchIndex implements ProductChangeListener {
+
+    private static final int NAME_FIELD = 1;
+    private static final int DESCRIPTION_FIELD = 2;
+
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double EXACT_MATCH = 2.0;
+    private static final double PREFIX_MATCH = 1.5;
+    private static final double INFIX_MATCH = 1.0;
+
+    private static final int GRAM_SIZE = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Product> products = new HashMap<>();
+    private final Map<Integer, Set<String>> tokensByProduct = new HashMap<>();
+    // token -> product id -> fields the token occurs in
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    // trigram -> vocabulary tokens containing it
+    private final Map<String, Set<String>> grams = new HashMap<>();
+
+    public void add(Product product) {
+        Product copy = new Product(product.getId(), product.getName(), product.getDescription(),
+                product.getCategoryId(), product.getPrice(), product.getStockQuantity(), product.getWeight(),
+                product.getImageUrl(), product.getCreatedAt(), product.isAvailable());
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            products.put(product.getId(), copy);
+
+            Map<String, Integer> fields = new HashMap<>();
+            for (String token : tokenize(product.getName())) {
+                fields.merge(token, NAME_FIELD, (a, b) -> a | b);
+            }
+            for (String token : tokenize(product.getDescription())) {
+                fields.merge(token, DESCRIPTION_FIELD, (a, b) -> a | b);
+            }
+            for (Map.Entry<String, Integer> field : fields.entrySet()) {
+                String token = field.getKey();
+                Map<Integer, Integer> posting = postings.get(token);
+                if (posting == null) {
+                    posting = new HashMap<>();
+                    postings.put(token, posting);
+                    for (String gram : grams(token)) {
+                        grams.computeIfAbsent(gram, g -> new HashSet<>()).add(token);
+                    }
+                }
+                posting.put(product.getId(), field.getValue());
+            }
+            tokensByProduct.put(product.getId(), fields.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int productId) {
+        products.remove(productId);
+        Set<String> tokens = tokensByProduct.remove(productId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<Integer, Integer> posting = postings.get(token);
+            posting.remove(productId);
+            if (posting.isEmpty()) {
+                postings.remove(token);
+                for (String gram : grams(token)) {
+                    Set<String> vocabulary = grams.get(gram);
+                    vocabulary.remove(token);
+                    if (vocabulary.isEmpty()) {
+                        grams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} products matching every term of the query, best match first.
+     */
+    public List<Product> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit < 1) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = null;
+            for (String term : terms) {
+                Map<Integer, Double> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // Every term has to match, so keep only products seen for all terms so far
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> {
+                int byScore = Double.compare(b.getValue(), a.getValue());
+                return byScore != 0 ? byScore : Integer.compare(a.getKey(), b.getKey());
+            });
+            List<Product> results = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                results.add(products.get(ranked.get(i).getKey()));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best score per product for a single query term
+    private Map<Integer, Double> scoreTerm(String term) {
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String token : matchingTokens(term)) {
+            double quality = token.equals(term) ? EXACT_MATCH : token.startsWith(term) ? PREFIX_MATCH : INFIX_MATCH;
+            for (Map.Entry<Integer, Integer> posting : postings.get(token).entrySet()) {
+                int fields = posting.getValue();
+                double weight = ((fields & NAME_FIELD) != 0 ? NAME_WEIGHT : 0)
+                        + ((fields & DESCRIPTION_FIELD) != 0 ? DESCRIPTION_WEIGHT : 0);
+                scores.merge(posting.getKey(), quality * weight, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private Set<String> matchingTokens(String term) {
+        if (term.length() < GRAM_SIZE) {
+            // Too short for trigrams: only prefix matches, straight from the sorted vocabulary
+            return postings.subMap(term, true, term + Character.MAX_VALUE, false).keySet();
+        }
+        Set<String> candidates = null;
+        for (String gram : grams(term)) {
+            Set<String> vocabulary = grams.get(gram);
+            if (vocabulary == null) {
+                return Set.of();
+            }
+            if (candidates == null) {
+                candidates = new HashSet<>(vocabulary);
+            } else {
+                candidates.retainAll(vocabulary);
+            }
+        }
+        // Sharing every trigram does not guarantee the term is contiguous inside the token
+        candidates.removeIf(token -> !token.contains(term));
+        return candidates;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> grams(String token) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= token.length(); i++) {
+            result.add(token.substring(i, i + GRAM_SIZE));
+        }
+        return result;
+    }
+
+    @Override
+    public void productSaved(Product product) {
+        add(product);
+    }
+
+    @Override
+    public void productUpdated(Product product) {
+        add(product);
+    }
+
+    @Override
+    public void stockUpdated(int productId, int newStockQuantity) {
+        lock.writeLock().lock();
+        try {
+            Product product = products.get(productId);
+            if (product != null) {
+                products.put(productId, withStock(product, newStockQuantity));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void stockAdjusted(int productId, int delta) {
+        lock.writeLock().lock();
+        try {
+            Product product = products.get(productId);
+            if (product != null) {
+                products.put(productId, withStock(product, product.getStockQuantity() + delta));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        remove(productId);
+    }
+
+    // Callers may hold the old instance without the lock, so it is replaced rather than changed
+    private static Product withStock(Product product, int stockQuantity) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getCategoryId(),
+                product.getPrice(), stockQuantity, product.getWeight(), product.getImageUrl(),
+                product.getCreatedAt(), product.isAvailable());
+    }
+}
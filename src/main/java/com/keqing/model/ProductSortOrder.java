@@ -0,0 +1,52 @@
+package com.keqing.model;
+
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * Orderings supported by the keyset-paginated product finders.
+ * Each ordering ends with the product id so that every row has a unique position.
+ * Paging stays cheap only with a matching index, e.g. {@code (created_at, id)} or {@code (price, id)}.
+ */
+public enum ProductSortOrder {
+    NEWEST_FIRST("created_at DESC, id DESC", "(created_at < ? OR (created_at = ? AND id < ?))",
+            Comparator.comparing(Product::getCreatedAt, ProductSortOrder::compareTimes).thenComparingInt(Product::getId).reversed()),
+    PRICE_LOW_TO_HIGH("price ASC, id ASC", "(price > ? OR (price = ? AND id > ?))",
+            Comparator.comparingDouble(Product::getPrice).thenComparingInt(Product::getId));
+
+    private final String orderBy;
+    private final String seekCondition;
+    private final Comparator<Product> comparator;
+
+    ProductSortOrder(String orderBy, String seekCondition, Comparator<Product> comparator) {
+        this.orderBy = orderBy;
+        this.seekCondition = seekCondition;
+        this.comparator = comparator;
+    }
+
+    String getOrderBy() {
+        return orderBy;
+    }
+
+    // Condition selecting the rows after a cursor; binds the sort key twice and then the id
+    String getSeekCondition() {
+        return seekCondition;
+    }
+
+    // The same ordering for products held in memory
+    Comparator<Product> getComparator() {
+        return comparator;
+    }
+
+    // Compares down to the nanosecond when both sides are timestamps
+    private static int compareTimes(Date a, Date b) {
+        int byMillis = Long.compare(a.getTime(), b.getTime());
+        if (byMillis != 0) {
+            return byMillis;
+        }
+        int aNanos = a instanceof Timestamp ? ((Timestamp) a).getNanos() % 1_000_000 : 0;
+        int bNanos = b instanceof Timestamp ? ((Timestamp) b).getNanos() % 1_000_000 : 0;
+        return Integer.compare(aNanos, bNanos);
+    }
+}
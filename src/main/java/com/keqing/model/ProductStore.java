@@ -0,0 +1,163 @@
+package com.keqing.model;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The catalog operations shared by every storage backend.
+ * {@link ProductRepository} keeps the catalog in a JDBC database; {@link InMemoryProductStore} keeps it
+ * entirely inside the process.
+ */
+public interface ProductStore extends AutoCloseable {
+
+    void addChangeListener(ProductChangeListener listener);
+
+    void removeChangeListener(ProductChangeListener listener);
+
+    // Products
+
+    void save(Product product);
+
+    void saveAll(List<Product> products);
+
+    BulkInsertReport saveAll(List<Product> products, int chunkSize);
+
+    Product findById(int id);
+
+    void update(Product product);
+
+    void delete(int id);
+
+    void updateStock(int productId, int newStockQuantity);
+
+    /**
+     * Takes {@code quantity} units from the product's stock if at least that many are left.
+     * Returns whether they were reserved; concurrent reservations never take more than there is.
+     */
+    boolean reserveStock(int productId, int quantity);
+
+    // Puts back units taken by reserveStock, e.g. when a checkout is abandoned
+    void releaseStock(int productId, int quantity);
+
+    List<Product> findAll();
+
+    List<Product> findAll(ProductProjection projection);
+
+    List<Product> findByCategory(int categoryId);
+
+    List<Product> findByCategory(int categoryId, ProductProjection projection);
+
+    List<Product> findByAvailability(boolean isAvailable);
+
+    List<Product> findByAvailability(boolean isAvailable, ProductProjection projection);
+
+    List<Product> findByPriceRange(double minPrice, double maxPrice);
+
+    List<Product> findByWeightRange(double minWeight, double maxWeight);
+
+    List<Product> findLowStock(int threshold);
+
+    List<Product> findRecent(int limit);
+
+    List<Product> findRecent(int limit, ProductProjection projection);
+
+    List<Product> search(String query, int limit);
+
+    List<Product> searchByName(String name);
+
+    int countProducts();
+
+    Map<Integer, Integer> countProductsByCategory();
+
+    // Pagination
+
+    Page<Product> findPage(ProductSortOrder order, String cursor, int pageSize);
+
+    Page<Product> findPage(ProductSortOrder order, String cursor, int pageSize, ProductProjection projection);
+
+    Page<Product> findPageByCategory(int categoryId, ProductSortOrder order, String cursor, int pageSize);
+
+    Page<Product> findPageByCategory(int categoryId, ProductSortOrder order, String cursor, int pageSize,
+                                     ProductProjection projection);
+
+    // Streaming; close the returned streams so backends can release what they hold
+
+    Stream<Product> streamAll();
+
+    Stream<Product> streamByCategory(int categoryId);
+
+    Stream<Product> streamByAvailability(boolean isAvailable);
+
+    Stream<Product> streamByPriceRange(double minPrice, double maxPrice);
+
+    Stream<Product> streamByWeightRange(double minWeight, double maxWeight);
+
+    Stream<Product> streamLowStock(int threshold);
+
+    void forEachProduct(Consumer<? super Product> visitor);
+
+    // Export; the channel is flushed but left open, and gzip wraps the whole output in one gzip stream
+
+    ExportReport exportCatalog(WritableByteChannel channel, ImportFormat format, boolean gzip) throws IOException;
+
+    default ExportReport exportCatalog(Path file, ImportFormat format, boolean gzip) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return exportCatalog(channel, format, gzip);
+        }
+    }
+
+    // Details and reviews
+
+    ProductDetail getProductDetails(int productId);
+
+    List<ProductDetail> getProductDetails(Collection<Integer> productIds);
+
+    // The product with its rating summary and only the first page of its reviews
+    ProductDetail getProductDetails(int productId, int reviewPageSize);
+
+    void addReview(int productId, int star, String description);
+
+    RatingSummary getRatingSummary(int productId);
+
+    // Newest reviews first
+    Page<Review> findReviews(int productId, String cursor, int pageSize);
+
+    // Featured products and categories
+
+    void addProductToFeatured(int productId, Timestamp fromDate, Timestamp toDate);
+
+    default void addProductToFeatured(Product product, Timestamp fromDate, Timestamp toDate) {
+        addProductToFeatured(product.getId(), fromDate, toDate);
+    }
+
+    void removeProductFromFeatured(int productId);
+
+    default void removeProductFromFeatured(Product product) {
+        removeProductFromFeatured(product.getId());
+    }
+
+    // Products with a featured window covering the instant, ordered by id
+    List<Product> findFeatured(Instant at);
+
+    default List<Product> findFeatured() {
+        return findFeatured(Instant.now());
+    }
+
+    void createCategory(String name, String description);
+
+    void deleteCategory(int categoryId);
+
+    @Override
+    void close();
+}
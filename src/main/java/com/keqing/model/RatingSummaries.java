@@ -0,0 +1,103 @@
+package com.keqing.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Per-product {@link RatingSummary} values kept in memory.
+ * A product's summary is loaded from the database the first time it is asked for and from then on updated
+ * incrementally by the repository's {@code addReview} writes, so detail pages never aggregate reviews again.
+ * A summary is only kept if no review for a product in its stripe was being written while it loaded; otherwise
+ * the load may or may not have seen that review, and the summary is handed out once without being kept.
+ */
+public class RatingSummaries implements ProductChangeListener {
+
+    private static final int STRIPES = 64;
+
+    private final Map<Integer, RatingSummary> summaries = new ConcurrentHashMap<>();
+    // A loaded summary is only kept if no review for a product in its stripe was written while it was loading
+    private final long[] versions = new long[STRIPES];
+    // Reviews being inserted per stripe, between beginReview and endReview
+    private final int[] writing = new int[STRIPES];
+    private final Object[] locks = new Object[STRIPES];
+
+    public RatingSummaries() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    RatingSummary get(int productId, IntFunction<RatingSummary> loader) {
+        RatingSummary summary = summaries.get(productId);
+        if (summary != null) {
+            return summary;
+        }
+        int stripe = Math.floorMod(productId, STRIPES);
+        long version;
+        boolean idle;
+        synchronized (locks[stripe]) {
+            version = versions[stripe];
+            idle = writing[stripe] == 0;
+        }
+        RatingSummary loaded = loader.apply(productId);
+        if (loaded == null) {
+            return RatingSummary.EMPTY;
+        }
+        synchronized (locks[stripe]) {
+            if (idle && versions[stripe] == version) {
+                RatingSummary existing = summaries.putIfAbsent(productId, loaded);
+                return existing != null ? existing : loaded;
+            }
+        }
+        return loaded;
+    }
+
+    public int size() {
+        return summaries.size();
+    }
+
+    public void clear() {
+        summaries.clear();
+    }
+
+    /**
+     * Called by the repository before it inserts a review, so that loads overlapping the insert are not kept:
+     * such a load may already count the review that {@link #reviewAdded} is about to add.
+     * Must be followed by {@link #endReview}, whether or not the insert succeeds.
+     */
+    void beginReview(int productId) {
+        int stripe = Math.floorMod(productId, STRIPES);
+        synchronized (locks[stripe]) {
+            versions[stripe]++;
+            writing[stripe]++;
+        }
+    }
+
+    void endReview(int productId) {
+        int stripe = Math.floorMod(productId, STRIPES);
+        synchronized (locks[stripe]) {
+            writing[stripe]--;
+        }
+    }
+
+    // Only summaries loaded before the insert began can be present here, so none of them counts the review yet
+    @Override
+    public void reviewAdded(int productId, int star) {
+        int stripe = Math.floorMod(productId, STRIPES);
+        synchronized (locks[stripe]) {
+            versions[stripe]++;
+            summaries.computeIfPresent(productId, (id, summary) -> summary.withReview(star));
+        }
+    }
+
+    @Override
+    public void productDeleted(int productId) {
+        summaries.remove(productId);
+    }
+
+    @Override
+    public String toString() {
+        return "RatingSummaries[products=" + summaries.size() + "]";
+    }
+}
@@ -0,0 +1,95 @@
+package com.keqing.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Number of reviews, average star rating and a 1-5 star histogram for one product.
+ * Immutable; {@link #withReview(int)} returns an updated copy. Stars outside 1-5 are not counted.
+ */
+public class RatingSummary {
+
+    public static final RatingSummary EMPTY = new RatingSummary(new int[5]);
+
+    // starCounts[0] holds the one-star reviews
+    private final int[] starCounts;
+    private final int count;
+    private final long starTotal;
+
+    private RatingSummary(int[] starCounts) {
+        this.starCounts = starCounts;
+        int reviews = 0;
+        long total = 0;
+        for (int i = 0; i < starCounts.length; i++) {
+            reviews += starCounts[i];
+            total += (long) starCounts[i] * (i + 1);
+        }
+        this.count = reviews;
+        this.starTotal = total;
+    }
+
+    /**
+     * @param starCounts the number of one- to five-star reviews, in that order
+     */
+    public static RatingSummary of(int... starCounts) {
+        if (starCounts.length != 5) {
+            throw new IllegalArgumentException("Expected 5 star counts but got " + starCounts.length);
+        }
+        return new RatingSummary(starCounts.clone());
+    }
+
+    public static RatingSummary of(Collection<Review> reviews) {
+        int[] starCounts = new int[5];
+        for (Review review : reviews) {
+            if (isValidStar(review.getStar())) {
+                starCounts[review.getStar() - 1]++;
+            }
+        }
+        return new RatingSummary(starCounts);
+    }
+
+    static boolean isValidStar(int star) {
+        return star >= 1 && star <= 5;
+    }
+
+    public RatingSummary withReview(int star) {
+        if (!isValidStar(star)) {
+            return this;
+        }
+        int[] updated = starCounts.clone();
+        updated[star - 1]++;
+        return new RatingSummary(updated);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    // 0 when there are no reviews
+    public double getAverage() {
+        return count == 0 ? 0 : (double) starTotal / count;
+    }
+
+    public int getStarCount(int star) {
+        if (!isValidStar(star)) {
+            throw new IllegalArgumentException("Star rating must be between 1 and 5: " + star);
+        }
+        return starCounts[star - 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RatingSummary && Arrays.equals(starCounts, ((RatingSummary) o).starCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(starCounts);
+    }
+
+    @Override
+    public String toString() {
+        return "RatingSummary[count=" + count + ", average=" + String.format("%.2f", getAverage())
+                + ", stars=" + Arrays.toString(starCounts) + "]";
+    }
+}
@@ -0,0 +1,216 @@
+package com.keqing.model;
+
+import com.keqing.Utils.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation instrumentation for {@link ProductRepository}.
+ * Every database operation records its latency in a {@link LatencyHistogram}, together with call, error and row
+ * counts and the time spent waiting for a pooled connection. Calls answered from the cache, search index,
+ * catalog snapshot or counters never reach the database and are not recorded.
+ * Recording is lock-free and allocation-light, so the metrics can stay enabled in production.
+ */
+public class RepositoryMetrics implements RepositoryMetricsMXBean {
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+    private volatile boolean jfrEvents;
+
+    Operation begin(String name) {
+        OperationMetrics target = operations.get(name);
+        if (target == null) {
+            target = operations.computeIfAbsent(name, n -> new OperationMetrics());
+        }
+        return new Operation(this, name, target);
+    }
+
+    /**
+     * Latency histogram of one operation, e.g. {@code "findById"}, or null if it has not run yet.
+     */
+    public LatencyHistogram getLatency(String operation) {
+        OperationMetrics target = operations.get(operation);
+        return target == null ? null : target.latency;
+    }
+
+    public LatencyHistogram getConnectionAcquireLatency() {
+        return connectionAcquire;
+    }
+
+    public OperationStats getOperation(String name) {
+        OperationMetrics target = operations.get(name);
+        return target == null ? null : target.toStats(name);
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        List<OperationStats> stats = new ArrayList<>();
+        operations.forEach((name, target) -> stats.add(target.toStats(name)));
+        stats.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return stats;
+    }
+
+    @Override
+    public long getTotalCalls() {
+        long calls = 0;
+        for (OperationMetrics target : operations.values()) {
+            calls += target.latency.getCount();
+        }
+        return calls;
+    }
+
+    @Override
+    public long getTotalErrors() {
+        long errors = 0;
+        for (OperationMetrics target : operations.values()) {
+            errors += target.errors.sum();
+        }
+        return errors;
+    }
+
+    @Override
+    public long getConnectionAcquireCount() {
+        return connectionAcquire.getCount();
+    }
+
+    @Override
+    public double getConnectionAcquireMeanMillis() {
+        return connectionAcquire.getMeanMillis();
+    }
+
+    @Override
+    public double getConnectionAcquireP50Millis() {
+        return connectionAcquire.percentileMillis(0.5);
+    }
+
+    @Override
+    public double getConnectionAcquireP99Millis() {
+        return connectionAcquire.percentileMillis(0.99);
+    }
+
+    @Override
+    public double getConnectionAcquireP999Millis() {
+        return connectionAcquire.percentileMillis(0.999);
+    }
+
+    @Override
+    public double getConnectionAcquireMaxMillis() {
+        return connectionAcquire.getMaxMillis();
+    }
+
+    @Override
+    public boolean isJfrEventsEnabled() {
+        return jfrEvents;
+    }
+
+    // Emits a RepositoryOperationEvent per operation; only costs anything while a recording has it enabled
+    @Override
+    public void setJfrEventsEnabled(boolean enabled) {
+        this.jfrEvents = enabled;
+    }
+
+    @Override
+    public void reset() {
+        operations.clear();
+        connectionAcquire.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "RepositoryMetrics[calls=" + getTotalCalls() + ", errors=" + getTotalErrors()
+                + ", operations=" + getOperations() + ", connectionAcquire=" + connectionAcquire + "]";
+    }
+
+    private static final class OperationMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder acquireNanos = new LongAdder();
+
+        OperationStats toStats(String name) {
+            return new OperationStats(name, latency.getCount(), errors.sum(), rows.sum(), latency.getMeanMillis(),
+                    latency.percentileMillis(0.5), latency.percentileMillis(0.99), latency.percentileMillis(0.999),
+                    latency.getMaxMillis(), acquireNanos.sum() / 1_000_000.0);
+        }
+    }
+
+    /**
+     * One running operation. An operation that is closed without {@link #succeeded()} counts as an error,
+     * so exceptions are recorded without a catch block of their own.
+     */
+    static final class Operation implements AutoCloseable {
+
+        // Handed out while metrics are disabled
+        static final Operation NONE = new Operation(null, null, null);
+
+        private final RepositoryMetrics owner;
+        private final String name;
+        private final OperationMetrics target;
+        private final long startNanos;
+        private final RepositoryOperationEvent event;
+        private long rows;
+        private long acquireNanos;
+        private boolean succeeded;
+        private boolean closed;
+
+        private Operation(RepositoryMetrics owner, String name, OperationMetrics target) {
+            this.owner = owner;
+            this.name = name;
+            this.target = target;
+            this.startNanos = owner == null ? 0 : System.nanoTime();
+            if (owner != null && owner.jfrEvents) {
+                event = new RepositoryOperationEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+
+        void connectionAcquired(long nanos) {
+            if (owner != null) {
+                acquireNanos += nanos;
+                owner.connectionAcquire.record(nanos);
+            }
+        }
+
+        void rows(long count) {
+            rows += count;
+        }
+
+        void succeeded() {
+            succeeded = true;
+        }
+
+        void failed() {
+            succeeded = false;
+        }
+
+        @Override
+        public void close() {
+            if (owner == null || closed) {
+                return;
+            }
+            closed = true;
+            target.latency.record(System.nanoTime() - startNanos);
+            target.rows.add(rows);
+            target.acquireNanos.add(acquireNanos);
+            if (!succeeded) {
+                target.errors.increment();
+            }
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.operation = name;
+                    event.rows = rows;
+                    event.failed = !succeeded;
+                    event.connectionAcquireTime = acquireNanos;
+                    event.commit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.keqing.model;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link RepositoryMetrics}. Latencies are in milliseconds.
+ */
+public interface RepositoryMetricsMXBean {
+
+    List<OperationStats> getOperations();
+
+    long getTotalCalls();
+
+    long getTotalErrors();
+
+    long getConnectionAcquireCount();
+
+    double getConnectionAcquireMeanMillis();
+
+    double getConnectionAcquireP50Millis();
+
+    double getConnectionAcquireP99Millis();
+
+    double getConnectionAcquireP999Millis();
+
+    double getConnectionAcquireMaxMillis();
+
+    boolean isJfrEventsEnabled();
+
+    void setJfrEventsEnabled(boolean enabled);
+
+    void reset();
+}
@@ -0,0 +1,33 @@
+package com.keqing.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event emitted for every repository operation while {@link RepositoryMetrics#isJfrEventsEnabled()} is set
+ * and a recording has the event enabled.
+ */
+@Name("com.keqing.RepositoryOperation")
+@Label("Repository Operation")
+@Category({"FluffyCMS", "Database"})
+@Description("A database operation performed by ProductRepository")
+@StackTrace(false)
+class RepositoryOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Failed")
+    boolean failed;
+
+    @Label("Connection Acquire Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectionAcquireTime;
+}
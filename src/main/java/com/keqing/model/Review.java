@@ -18,4 +18,23 @@ public class Review {
     }
 
     // Getters and setters
+    public int getRevId() {
+        return revId;
+    }
+
+    public int getProduct() {
+        return product;
+    }
+
+    public int getStar() {
+        return star;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
 }
@@ -0,0 +1,37 @@
+package com.keqing.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The position of the last review on a page of a product's reviews, encoded as an opaque URL-safe token.
+ * Reviews are listed newest first by id; the token records the product so it cannot be replayed against
+ * another product's reviews.
+ */
+final class ReviewCursor {
+
+    private static final String PREFIX = "REVIEWS";
+
+    private ReviewCursor() {
+    }
+
+    static String encode(int productId, Review last) {
+        String raw = PREFIX + "|" + productId + "|" + last.getRevId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns the id of the last review already seen
+    static int decode(int productId, String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3 || !parts[0].equals(PREFIX) || Integer.parseInt(parts[1]) != productId) {
+                throw new IllegalArgumentException("Cursor does not belong to the reviews of product " + productId);
+            }
+            return Integer.parseInt(parts[2]);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and Base64 decoding errors both land here
+            throw new IllegalArgumentException("Invalid review cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.keqing.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reservation and contention counters for one product, kept by {@link StockReservations}.
+ */
+public class StockContention {
+
+    private final int productId;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder combined = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder queuedNanos = new LongAdder();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+
+    StockContention(int productId) {
+        this.productId = productId;
+    }
+
+    void batchApplied(int size, long waitedNanos) {
+        batches.increment();
+        requests.add(size);
+        combined.add(size - 1);
+        queuedNanos.add(waitedNanos);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+    }
+
+    void granted() {
+        granted.increment();
+    }
+
+    void rejected() {
+        rejected.increment();
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getGrantedCount() {
+        return granted.sum();
+    }
+
+    // Reservations refused because there was not enough stock
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    // Requests that rode along in a batch led by another thread instead of going to the database themselves
+    public long getCombinedCount() {
+        return combined.sum();
+    }
+
+    // Round trips to the database, not counting fallbacks when a batch does not fit the remaining stock
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    // Average time a request waited in line before its batch was applied
+    public double getAverageQueueMillis() {
+        long count = requests.sum();
+        return count == 0 ? 0 : queuedNanos.sum() / 1_000_000.0 / count;
+    }
+
+    @Override
+    public String toString() {
+        return "StockContention[productId=" + productId + ", requests=" + getRequestCount()
+                + ", granted=" + getGrantedCount() + ", rejected=" + getRejectedCount()
+                + ", combined=" + getCombinedCount() + ", batches=" + getBatchCount()
+                + ", maxBatch=" + getMaxBatchSize()
+                + ", avgQueueMs=" + String.format("%.3f", getAverageQueueMillis()) + "]";
+    }
+}
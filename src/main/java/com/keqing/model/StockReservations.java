@@ -0,0 +1,194 @@
+package com.keqing.model;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-process admission for stock reservations.
+ * Products are hashed onto a fixed set of stripes. The first request for a product leads: it takes every
+ * request queued for that product and applies their combined quantity as one conditional decrement, while
+ * requests arriving meanwhile wait on the stripe instead of queueing on the row lock in the database. If the
+ * combined quantity is not in stock the batch falls back to one decrement per request in arrival order, so
+ * the database's condition alone decides what is granted and nothing is oversold.
+ * Stripes use a {@link ReentrantLock} rather than a monitor, so waiting virtual threads release their carrier.
+ */
+public class StockReservations {
+
+    private static final int STRIPES = 64;
+
+    /**
+     * Atomically takes {@code quantity} from the product's stock if at least that much is left.
+     */
+    @FunctionalInterface
+    interface StockDecrement {
+        boolean apply(int productId, int quantity) throws SQLException;
+    }
+
+    private final StockDecrement decrement;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<Integer, StockContention> contention = new ConcurrentHashMap<>();
+
+    StockReservations(StockDecrement decrement) {
+        this.decrement = decrement;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    boolean reserve(int productId, int quantity) throws SQLException {
+        Stripe stripe = stripes[Math.floorMod(productId, STRIPES)];
+        Request request = new Request(quantity);
+        stripe.lock.lock();
+        try {
+            ProductQueue queue = stripe.queues.computeIfAbsent(productId, id -> new ProductQueue());
+            queue.pending.add(request);
+            if (queue.leading) {
+                while (!request.done && !request.lead) {
+                    // The leader may already be applying this request; wait for its outcome even if interrupted
+                    stripe.changed.awaitUninterruptibly();
+                }
+            } else {
+                queue.leading = true;
+                request.lead = true;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (!request.done) {
+            lead(productId, stripe);
+        }
+        if (request.error != null) {
+            throw request.error;
+        }
+        return request.granted;
+    }
+
+    private void lead(int productId, Stripe stripe) {
+        List<Request> batch;
+        stripe.lock.lock();
+        try {
+            ProductQueue queue = stripe.queues.get(productId);
+            batch = new ArrayList<>(queue.pending);
+            queue.pending.clear();
+        } finally {
+            stripe.lock.unlock();
+        }
+        try {
+            apply(productId, batch);
+        } finally {
+            stripe.lock.lock();
+            try {
+                for (Request request : batch) {
+                    request.done = true;
+                }
+                ProductQueue queue = stripe.queues.get(productId);
+                if (queue.pending.isEmpty()) {
+                    stripe.queues.remove(productId);
+                } else {
+                    // Hand over to the oldest waiter so no thread leads more than one batch
+                    queue.pending.peekFirst().lead = true;
+                }
+                stripe.changed.signalAll();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    private void apply(int productId, List<Request> batch) {
+        StockContention stats = contentionFor(productId);
+        long now = System.nanoTime();
+        long total = 0;
+        long waited = 0;
+        for (Request request : batch) {
+            total += request.quantity;
+            waited += now - request.enqueuedNanos;
+        }
+        stats.batchApplied(batch.size(), waited);
+
+        int next = 0;
+        try {
+            if (total <= Integer.MAX_VALUE && decrement.apply(productId, (int) total)) {
+                for (Request request : batch) {
+                    request.granted = true;
+                    stats.granted();
+                }
+                return;
+            }
+            if (batch.size() == 1) {
+                stats.rejected();
+                return;
+            }
+            // Not enough for everyone; let the database decide request by request, oldest first
+            for (; next < batch.size(); next++) {
+                Request request = batch.get(next);
+                request.granted = decrement.apply(productId, request.quantity);
+                if (request.granted) {
+                    stats.granted();
+                } else {
+                    stats.rejected();
+                }
+            }
+        } catch (SQLException e) {
+            for (Request request : batch.subList(next, batch.size())) {
+                request.error = e;
+            }
+        }
+    }
+
+    private StockContention contentionFor(int productId) {
+        return contention.computeIfAbsent(productId, StockContention::new);
+    }
+
+    // Null if the product has not been reserved yet
+    public StockContention getContention(int productId) {
+        return contention.get(productId);
+    }
+
+    /**
+     * The products with the most reservation requests, busiest first.
+     */
+    public List<StockContention> getHottest(int limit) {
+        return contention.values().stream()
+                .sorted(Comparator.comparingLong(StockContention::getRequestCount).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        // Signalled whenever a batch finishes
+        final Condition changed = lock.newCondition();
+        // Guarded by lock
+        final Map<Integer, ProductQueue> queues = new HashMap<>();
+    }
+
+    private static final class ProductQueue {
+        final ArrayDeque<Request> pending = new ArrayDeque<>();
+        boolean leading;
+    }
+
+    private static final class Request {
+        final int quantity;
+        final long enqueuedNanos = System.nanoTime();
+        // Guarded by the stripe's lock
+        boolean lead;
+        boolean done;
+        // Written by the leader before done is set under the stripe's lock, so visible to the waiter afterwards
+        boolean granted;
+        SQLException error;
+
+        Request(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
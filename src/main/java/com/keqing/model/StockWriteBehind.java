@@ -0,0 +1,274 @@
+package com.keqing.model;
+
+import com.keqing.db.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Write-behind buffer for stock updates.
+ * Only the latest quantity per product is kept; pending quantities are written in one JDBC batch
+ * once {@code batchSize} products are pending or every {@code flushIntervalMillis}, whichever comes first.
+ * {@link #flush()} writes everything synchronously, and a JVM shutdown hook flushes on exit.
+ */
+public class StockWriteBehind implements AutoCloseable {
+
+    private static final String UPDATE_SQL = "UPDATE products SET stock_quantity = ? WHERE id = ?";
+
+    private final ConnectionPool connectionPool;
+    private final int batchSize;
+    private final BiConsumer<Integer, Integer> onFlushed;
+
+    private final ConcurrentHashMap<Integer, PendingStock> pending = new ConcurrentHashMap<>();
+    // A ReentrantLock rather than a monitor, so virtual threads waiting on a flush do not pin their carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook;
+    private volatile boolean closed;
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong totalLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    /**
+     * @param onFlushed called with (productId, stockQuantity) for every row once its batch has been committed
+     */
+    public StockWriteBehind(ConnectionPool connectionPool, int batchSize, long flushIntervalMillis,
+                            BiConsumer<Integer, Integer> onFlushed) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.connectionPool = connectionPool;
+        this.batchSize = batchSize;
+        this.onFlushed = onFlushed;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+
+        this.shutdownHook = new Thread(this::flushQuietly, "stock-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public void submit(int productId, int newStockQuantity) {
+        if (closed) {
+            throw new IllegalStateException("Stock write-behind has been closed");
+        }
+        submitted.incrementAndGet();
+        pending.compute(productId, (id, previous) -> {
+            if (previous == null) {
+                return new PendingStock(newStockQuantity, System.nanoTime());
+            }
+            coalesced.incrementAndGet();
+            // Keep the original enqueue time so lag covers the whole time the product was dirty
+            return new PendingStock(newStockQuantity, previous.enqueuedNanos);
+        });
+        if (pending.size() >= batchSize && flushQueued.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushQueued.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * Drops a pending quantity, e.g. because a full product update is about to overwrite it.
+     * Waits for a flush in progress, which may already have taken the quantity, so once this returns
+     * nothing older than the caller's next write can reach the database.
+     */
+    public void cancel(int productId) {
+        flushLock.lock();
+        try {
+            pending.remove(productId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the product's pending quantity, if any, to the database before returning.
+     */
+    public void flush(int productId) throws SQLException {
+        flushLock.lock();
+        try {
+            PendingStock stock = pending.remove(productId);
+            if (stock == null) {
+                return;
+            }
+            try {
+                writeBatch(List.of(Map.entry(productId, stock)));
+            } catch (SQLException e) {
+                failedBatches.incrementAndGet();
+                pending.putIfAbsent(productId, stock);
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every pending quantity to the database before returning.
+     */
+    public void flush() throws SQLException {
+        flushLock.lock();
+        try {
+            List<Map.Entry<Integer, PendingStock>> drained = new ArrayList<>();
+            for (Integer productId : pending.keySet()) {
+                PendingStock stock = pending.remove(productId);
+                if (stock != null) {
+                    drained.add(Map.entry(productId, stock));
+                }
+            }
+
+            for (int from = 0; from < drained.size(); from += batchSize) {
+                List<Map.Entry<Integer, PendingStock>> batch =
+                        drained.subList(from, Math.min(drained.size(), from + batchSize));
+                try {
+                    writeBatch(batch);
+                } catch (SQLException e) {
+                    failedBatches.incrementAndGet();
+                    // Put back whatever has not been superseded by a newer submit, then give up for now
+                    for (Map.Entry<Integer, PendingStock> entry : drained.subList(from, drained.size())) {
+                        pending.putIfAbsent(entry.getKey(), entry.getValue());
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeBatch(List<Map.Entry<Integer, PendingStock>> batch) throws SQLException {
+        try (Connection conn = connectionPool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+            conn.setAutoCommit(false);
+            for (Map.Entry<Integer, PendingStock> entry : batch) {
+                pstmt.setInt(1, entry.getValue().stockQuantity);
+                pstmt.setInt(2, entry.getKey());
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            conn.commit();
+        }
+
+        long now = System.nanoTime();
+        batches.incrementAndGet();
+        flushedRows.addAndGet(batch.size());
+        for (Map.Entry<Integer, PendingStock> entry : batch) {
+            long lag = now - entry.getValue().enqueuedNanos;
+            totalLagNanos.addAndGet(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+            onFlushed.accept(entry.getKey(), entry.getValue().stockQuantity);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.out.println("Database error while flushing stock updates: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+            // Already shutting down; the hook flushes on its own
+        }
+    }
+
+    // Metrics
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getFlushedRowCount() {
+        return flushedRows.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+
+    public double getFlushedRowsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return seconds == 0 ? 0 : flushedRows.get() / seconds;
+    }
+
+    public double getAverageLagMillis() {
+        long rows = flushedRows.get();
+        return rows == 0 ? 0 : totalLagNanos.get() / 1_000_000.0 / rows;
+    }
+
+    public double getMaxLagMillis() {
+        return maxLagNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return "StockWriteBehind[pending=" + getPendingCount() + ", submitted=" + getSubmittedCount()
+                + ", coalesced=" + getCoalescedCount() + ", flushedRows=" + getFlushedRowCount()
+                + ", batches=" + getBatchCount() + ", failedBatches=" + getFailedBatchCount()
+                + ", avgLagMs=" + String.format("%.3f", getAverageLagMillis()) + "]";
+    }
+
+    private static final class PendingStock {
+        final int stockQuantity;
+        final long enqueuedNanos;
+
+        PendingStock(int stockQuantity, long enqueuedNanos) {
+            this.stockQuantity = stockQuantity;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -7,6 +7,10 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -68,4 +72,98 @@ public class JSONUtilTest {
         // Check that the method did not change the state of the object
         assertEquals("value1", jsonUtil.getConfigValue("key1"));
     }
+
+    @Test
+    public void testAutoSave_manyChanges_writtenOnceAtomically() throws Exception {
+        String filePath = "test_file3.json";
+        Files.deleteIfExists(Paths.get(filePath));
+
+        try {
+            JSONUtil jsonUtil = new JSONUtil(filePath, true, 100);
+            for (int i = 0; i < 100; i++) {
+                jsonUtil.setConfigValue("key" + i, i);
+            }
+
+            // The debounced save runs in the background
+            for (int attempt = 0; attempt < 50 && !new File(filePath).exists(); attempt++) {
+                Thread.sleep(50);
+            }
+            Thread.sleep(200);
+
+            JSONUtil jsonUtilVerify = new JSONUtil(filePath);
+            assertEquals(99, jsonUtilVerify.getConfigValue("key99"));
+            try (var files = Files.list(Paths.get("."))) {
+                assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+            }
+        } finally {
+            Files.deleteIfExists(Paths.get(filePath));
+        }
+    }
+
+    @Test
+    public void testClose_pendingAutoSave_writtenImmediately() throws Exception {
+        String filePath = "test_file6.json";
+        Files.deleteIfExists(Paths.get(filePath));
+
+        try {
+            // The scheduled save would not run before the test ends
+            JSONUtil jsonUtil = new JSONUtil(filePath, true, TimeUnit.MINUTES.toMillis(10));
+            jsonUtil.setConfigValue("key1", "value1");
+            assertFalse(new File(filePath).exists());
+
+            jsonUtil.close();
+
+            assertEquals("value1", new JSONUtil(filePath).getConfigValue("key1"));
+        } finally {
+            Files.deleteIfExists(Paths.get(filePath));
+        }
+    }
+
+    @Test
+    public void testStartWatching_fileEditedExternally_reportsOnlyChangedKeys() throws Exception {
+        String filePath = "test_file4.json";
+        Files.writeString(Paths.get(filePath), "{\"poolSize\": 10, \"cacheTtl\": 60, \"servers\": [\"a\"]}");
+
+        JSONUtil jsonUtil = new JSONUtil(filePath);
+        BlockingQueue<Set<String>> changes = new LinkedBlockingQueue<>();
+        jsonUtil.addChangeListener((config, changedKeys) -> changes.add(changedKeys));
+        jsonUtil.startWatching();
+        try {
+            Files.writeString(Paths.get(filePath), "{\"poolSize\": 20, \"cacheTtl\": 60, \"servers\": [\"a\", \"b\"]}");
+
+            Set<String> changed = changes.poll(10, TimeUnit.SECONDS);
+            assertEquals(Set.of("poolSize", "servers"), changed);
+            assertEquals(20, jsonUtil.getConfigValue("poolSize"));
+            assertArrayEquals(new String[]{"a", "b"}, jsonUtil.getStringArray("servers"));
+        } finally {
+            jsonUtil.stopWatching();
+            Files.deleteIfExists(Paths.get(filePath));
+        }
+        assertFalse(jsonUtil.isWatching());
+    }
+
+    @Test
+    public void testStringSet_addAndRemove_dedupesAndSavesAsArray() throws Exception {
+        String filePath = "test_file5.json";
+        Files.deleteIfExists(Paths.get(filePath));
+
+        JSONUtil jsonUtil = new JSONUtil(filePath);
+        jsonUtil.setStringArray("servers", new String[]{"a", "b"});
+        Set<String> servers = jsonUtil.getStringSet("servers");
+
+        assertTrue(jsonUtil.addToStringSet("servers", "c"));
+        assertFalse(jsonUtil.addToStringSet("servers", "a"));
+        assertTrue(jsonUtil.removeFromStringSet("servers", "b"));
+        assertFalse(jsonUtil.removeFromStringSet("servers", "b"));
+
+        // The view reflects changes made after it was taken
+        assertEquals(Set.of("a", "c"), servers);
+        assertTrue(jsonUtil.stringSetContains("servers", "c"));
+        assertThrows(UnsupportedOperationException.class, () -> servers.add("d"));
+
+        jsonUtil.saveConfig();
+        JSONUtil jsonUtilVerify = new JSONUtil(filePath);
+        assertArrayEquals(new String[]{"a", "c"}, jsonUtilVerify.getStringArray("servers"));
+        Files.deleteIfExists(Paths.get(filePath));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.keqing.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles_uniformValues_withinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(50_000_000, histogram.percentileNanos(0.5), 50_000_000 * 0.04);
+        assertEquals(99_000_000, histogram.percentileNanos(0.99), 99_000_000 * 0.04);
+        assertEquals(99_900_000, histogram.percentileNanos(0.999), 99_900_000 * 0.04);
+        assertEquals(100_000_000, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void testBuckets_lowerBoundRoundTrips() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 63, 64, 1_000, 123_456_789, 1L << 39}) {
+            long lowerBound = LatencyHistogram.lowerBound(LatencyHistogram.bucketOf(value));
+            assertTrue(lowerBound <= value, "lower bound of " + value);
+            assertEquals(LatencyHistogram.bucketOf(value), LatencyHistogram.bucketOf(lowerBound));
+        }
+    }
+
+    @Test
+    public void testPercentile_emptyAndReset_returnZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentileNanos(0.99));
+
+        histogram.record(5_000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentileNanos(0.5));
+    }
+}
@@ -0,0 +1,68 @@
+package com.keqing.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LruCacheTest {
+
+    @Test
+    public void testGet_secondLookup_servedFromCache() {
+        LruCache<Integer, String> cache = new LruCache<>(10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, key -> "value" + loads.incrementAndGet());
+        String second = cache.get(1, key -> "value" + loads.incrementAndGet());
+
+        assertEquals("value1", second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testGet_overCapacity_evictsLeastRecentlyUsed() {
+        LruCache<Integer, String> cache = new LruCache<>(2, 60_000);
+        cache.get(1, key -> "one");
+        cache.get(2, key -> "two");
+        cache.get(1, key -> "one");  // 2 is now the least recently used
+        cache.get(3, key -> "three");
+
+        assertNotNull(cache.getIfPresent(1));
+        assertNull(cache.getIfPresent(2));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testGet_afterTtl_reloads() throws InterruptedException {
+        LruCache<Integer, String> cache = new LruCache<>(10, 1);
+        cache.get(1, key -> "old");
+        Thread.sleep(5);
+
+        assertEquals("new", cache.get(1, key -> "new"));
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    public void testGet_nullValue_notCached() {
+        LruCache<Integer, String> cache = new LruCache<>(10, 60_000);
+        cache.get(1, key -> null);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidate_duringLoad_staleValueNotCached() {
+        LruCache<Integer, String> cache = new LruCache<>(10, 60_000);
+
+        cache.get(1, key -> {
+            // A write lands while the value is being read from the database
+            cache.invalidate(1);
+            return "stale";
+        });
+
+        assertNull(cache.getIfPresent(1));
+    }
+}
@@ -0,0 +1,77 @@
+package com.keqing.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1";
+
+    @Test
+    public void testGetConnection_returnedHandle_reusesPhysicalConnection() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "sa", "", 0, 2, 60_000, 1_000)) {
+            Connection first = pool.getConnection();
+            String physical = first.toString();
+            assertEquals(1, pool.getActiveCount());
+            first.close();
+            first.close();
+
+            assertTrue(first.isClosed());
+            assertThrows(SQLException.class, first::createStatement);
+            assertEquals(0, pool.getActiveCount());
+            assertEquals(1, pool.getIdleCount());
+            try (Connection second = pool.getConnection()) {
+                assertEquals(physical, second.toString());
+            }
+            assertEquals(1, pool.getCreatedCount());
+            assertEquals(2, pool.getBorrowCount());
+        }
+    }
+
+    @Test
+    public void testGetConnection_poolExhausted_timesOut() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "sa", "", 0, 1, 60_000, 100)) {
+            try (Connection held = pool.getConnection()) {
+                long start = System.nanoTime();
+                assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+                assertTrue(System.nanoTime() - start >= 90_000_000L);
+                assertEquals(1, pool.getTimeoutCount());
+                assertFalse(held.isClosed());
+            }
+            // The slot is free again once the holder gives it back
+            try (Connection again = pool.getConnection()) {
+                assertFalse(again.isClosed());
+            }
+        }
+    }
+
+    @Test
+    public void testHousekeep_idlePastTimeout_evictedDownToMinSize() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "sa", "", 1, 3, 0, 1_000)) {
+            Connection a = pool.getConnection();
+            Connection b = pool.getConnection();
+            Connection c = pool.getConnection();
+            a.close();
+            b.close();
+            c.close();
+
+            pool.housekeep();
+
+            assertEquals(1, pool.getIdleCount());
+            assertEquals(0, pool.getActiveCount());
+            assertTrue(pool.getEvictedCount() >= 2);
+        }
+    }
+
+    @Test
+    public void testGetConnection_closedPool_fails() {
+        ConnectionPool pool = new ConnectionPool(URL, "sa", "", 0, 1, 60_000, 100);
+        pool.close();
+        assertThrows(SQLException.class, pool::getConnection);
+    }
+}
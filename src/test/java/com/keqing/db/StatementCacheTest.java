@@ -0,0 +1,66 @@
+package com.keqing.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCacheTest {
+
+    private static final String SQL = "SELECT 1";
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void init() {
+        pool = new ConnectionPool("jdbc:h2:mem:stmtcache;DB_CLOSE_DELAY=-1", "sa", "", 0, 1, 60_000, 1_000, 2);
+    }
+
+    @AfterEach
+    void cleanup() {
+        pool.close();
+    }
+
+    @Test
+    public void testPrepare_sameSqlAgain_reusesStatementWithDefaultsRestored() throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            String underlying;
+            int defaultFetchSize;
+            try (PreparedStatement first = conn.prepareStatement(SQL)) {
+                underlying = first.toString();
+                defaultFetchSize = first.getFetchSize();
+                first.setMaxRows(5);
+                first.setFetchSize(3);
+                first.setQueryTimeout(7);
+            }
+            try (PreparedStatement second = conn.prepareStatement(SQL)) {
+                assertEquals(underlying, second.toString());
+                assertEquals(defaultFetchSize, second.getFetchSize());
+                assertEquals(0, second.getMaxRows());
+                assertEquals(0, second.getQueryTimeout());
+            }
+        }
+        assertEquals(1, pool.getStatementCacheHits());
+        assertEquals(1, pool.getStatementCacheMisses());
+    }
+
+    @Test
+    public void testPrepare_cachedStatementInUse_returnsWrappedUncachedStatement() throws SQLException {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement cached = conn.prepareStatement(SQL)) {
+            PreparedStatement uncached = conn.prepareStatement(SQL);
+            assertNotEquals(cached.toString(), uncached.toString());
+            assertSame(conn, uncached.getConnection());
+            assertSame(conn, cached.getConnection());
+            uncached.close();
+            assertTrue(uncached.isClosed());
+            assertFalse(cached.isClosed());
+        }
+        assertEquals(2, pool.getStatementCacheMisses());
+    }
+}
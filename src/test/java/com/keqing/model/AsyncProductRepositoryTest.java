@@ -0,0 +1,91 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncProductRepositoryTest {
+
+    private static final int POOL_SIZE = 2;
+
+    private TestDatabase database;
+
+    @BeforeEach
+    void init() throws SQLException {
+        database = new TestDatabase("async", POOL_SIZE);
+    }
+
+    @AfterEach
+    void cleanup() throws SQLException {
+        database.close();
+    }
+
+    @Test
+    void testCalls_inFlightLimitedToPoolSize() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ProductRepository blocking = new ProductRepository(database.pool) {
+            @Override
+            public Product findById(int id) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                    return super.findById(id);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+
+        try (AsyncProductRepository async = new AsyncProductRepository(blocking)) {
+            List<CompletableFuture<Product>> futures = new ArrayList<>();
+            for (int id = 1; id <= 10; id++) {
+                futures.add(async.findById(id));
+            }
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (async.getQueuedCount() < 10 - POOL_SIZE && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // The rest wait for a permit rather than for a pooled connection
+            assertEquals(10 - POOL_SIZE, async.getQueuedCount());
+            assertEquals(POOL_SIZE, inFlight.get());
+            assertEquals(0, async.getAvailablePermits());
+
+            release.countDown();
+            for (CompletableFuture<Product> future : futures) {
+                assertNull(future.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(POOL_SIZE, maxInFlight.get());
+            assertEquals(POOL_SIZE, async.getAvailablePermits());
+            assertEquals(0, database.pool.getTimeoutCount());
+        }
+    }
+
+    @Test
+    void testFailedCall_futureCompletesExceptionallyAndPermitReturned() {
+        try (AsyncProductRepository async = new AsyncProductRepository(database.repository)) {
+            CompletableFuture<Page<Product>> page = async.findPage(ProductSortOrder.NEWEST_FIRST, "not a cursor", 10);
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> page.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertTrue(page.isCompletedExceptionally());
+            assertEquals(POOL_SIZE, async.getAvailablePermits());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    private static Product product(int id, int category, double price, int stock, double weight, boolean available) {
+        return new Product(id, "Product " + id, "Description", category, price, stock, weight, "img", new Date(), available);
+    }
+
+    private static Set<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    @Test
+    void testRangeQueries_IncludeBothBounds() {
+        CatalogSnapshot snapshot = new CatalogSnapshot();
+        snapshot.load(List.of(
+                product(1, 1, 5.0, 10, 1.0, true),
+                product(2, 1, 10.0, 2, 2.0, false),
+                product(3, 2, 15.0, 0, 3.0, true)));
+
+        assertEquals(Set.of(1, 2), ids(snapshot.findByPriceRange(5.0, 10.0)));
+        assertEquals(Set.of(2, 3), ids(snapshot.findByWeightRange(1.5, 3.0)));
+        assertEquals(Set.of(2, 3), ids(snapshot.findLowStock(5)));
+        assertEquals(Set.of(2), ids(snapshot.findByAvailability(false)));
+    }
+
+    @Test
+    void testSelections_CombineAsBitsets() {
+        CatalogSnapshot snapshot = new CatalogSnapshot();
+        snapshot.load(List.of(
+                product(1, 1, 5.0, 10, 1.0, true),
+                product(2, 1, 10.0, 2, 2.0, false),
+                product(3, 2, 15.0, 0, 3.0, true)));
+
+        List<Product> products = snapshot.read(() -> {
+            BitSet slots = snapshot.selectPriceRange(0, 20);
+            slots.and(snapshot.selectCategory(1));
+            slots.and(snapshot.selectAvailability(true));
+            return snapshot.toProducts(slots);
+        });
+
+        assertEquals(Set.of(1), ids(products));
+    }
+
+    @Test
+    void testIncrementalChanges_MatchBruteForce() {
+        Random random = new Random(42);
+        CatalogSnapshot snapshot = new CatalogSnapshot();
+        Map<Integer, Product> expected = new HashMap<>();
+        List<Product> initial = new ArrayList<>();
+        for (int id = 1; id <= 50; id++) {
+            Product product = product(id, random.nextInt(3), random.nextInt(20), random.nextInt(10), random.nextInt(5), random.nextBoolean());
+            initial.add(product);
+            expected.put(id, product);
+        }
+        snapshot.load(initial);
+
+        for (int step = 0; step < 2000; step++) {
+            int id = 1 + random.nextInt(80);
+            int action = random.nextInt(4);
+            if (action == 0) {
+                snapshot.productDeleted(id);
+                expected.remove(id);
+            } else if (action == 1 && expected.containsKey(id)) {
+                int stock = random.nextInt(10);
+                snapshot.stockUpdated(id, stock);
+                expected.get(id).setStockQuantity(stock);
+            } else {
+                Product product = product(id, random.nextInt(3), random.nextInt(20), random.nextInt(10), random.nextInt(5), random.nextBoolean());
+                snapshot.productUpdated(product);
+                expected.put(id, product);
+            }
+
+            double min = random.nextInt(20);
+            double max = min + random.nextInt(8);
+            Set<Integer> byPrice = expected.values().stream()
+                    .filter(p -> p.getPrice() >= min && p.getPrice() <= max)
+                    .map(Product::getId).collect(Collectors.toCollection(TreeSet::new));
+            assertEquals(byPrice, ids(snapshot.findByPriceRange(min, max)));
+
+            Set<Integer> byWeight = expected.values().stream()
+                    .filter(p -> p.getWeight() >= 1 && p.getWeight() <= 3)
+                    .map(Product::getId).collect(Collectors.toCollection(TreeSet::new));
+            assertEquals(byWeight, ids(snapshot.findByWeightRange(1, 3)));
+
+            Set<Integer> lowStock = expected.values().stream()
+                    .filter(p -> p.getStockQuantity() < 4)
+                    .map(Product::getId).collect(Collectors.toCollection(TreeSet::new));
+            assertEquals(lowStock, ids(snapshot.findLowStock(4)));
+        }
+        assertEquals(expected.size(), snapshot.size());
+    }
+
+    @Test
+    void testStockUpdated_ReplacesProductInsteadOfChangingReturnedOne() {
+        CatalogSnapshot snapshot = new CatalogSnapshot();
+        snapshot.load(List.of(product(1, 1, 5.0, 10, 1.0, true)));
+        Product before = snapshot.findByPriceRange(0, 100).get(0);
+
+        snapshot.stockUpdated(1, 3);
+        snapshot.stockAdjusted(1, -1);
+
+        assertEquals(10, before.getStockQuantity());
+        assertEquals(2, snapshot.findByPriceRange(0, 100).get(0).getStockQuantity());
+        assertEquals(Set.of(1), ids(snapshot.findLowStock(3)));
+    }
+}
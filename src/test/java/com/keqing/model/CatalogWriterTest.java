@@ -0,0 +1,93 @@
+package com.keqing.model;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private static InMemoryProductStore storeWith(int count) {
+        InMemoryProductStore store = new InMemoryProductStore();
+        for (int i = 0; i < count; i++) {
+            store.save(new Product(0, "Cake " + i, "Rich, \"dark\" chocolateé", 1, i + 0.25, i, 1.5, null,
+                    new Date(), i % 2 == 0));
+        }
+        return store;
+    }
+
+    @Test
+    public void testExportCatalog_gzipJsonLines_decompressesToOneObjectPerProduct() throws Exception {
+        InMemoryProductStore store = storeWith(5000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ExportReport report = store.exportCatalog(Channels.newChannel(bytes), ImportFormat.JSON_LINES, true);
+
+        assertEquals(5000, report.getRowCount());
+        assertEquals(bytes.size(), report.getBytesWritten());
+        String text = new String(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        String[] lines = text.split("\n");
+        assertEquals(5000, lines.length);
+        JSONObject first = new JSONObject(lines[0]);
+        assertEquals("Cake 0", first.getString("name"));
+        assertEquals("Rich, \"dark\" chocolateé", first.getString("description"));
+        assertTrue(first.isNull("image_url"));
+        assertEquals(0.25, first.getDouble("price"));
+        assertTrue(first.getBoolean("is_available"));
+    }
+
+    @Test
+    public void testExportCatalog_csvFile_importsBackUnchanged() throws Exception {
+        InMemoryProductStore source = storeWith(300);
+        Path file = dir.resolve("catalog.csv");
+
+        ExportReport report = source.exportCatalog(file, ImportFormat.CSV, false);
+        InMemoryProductStore target = new InMemoryProductStore();
+        ImportReport imported = new ProductImporter(target, 2, 1, 100).importFile(file, ImportFormat.CSV);
+
+        assertEquals(300, report.getRowCount());
+        assertTrue(imported.isSuccessful());
+        assertEquals(300, imported.getImportedCount());
+        List<Product> products = target.findAll();
+        products.sort((a, b) -> Double.compare(a.getPrice(), b.getPrice()));
+        Product last = products.get(299);
+        assertEquals("Cake 299", last.getName());
+        assertEquals("Rich, \"dark\" chocolateé", last.getDescription());
+        assertEquals(299, last.getStockQuantity());
+        assertFalse(last.isAvailable());
+    }
+
+    @Test
+    public void testExportCatalog_csvWithLineBreaks_importsBackUnchanged() throws Exception {
+        InMemoryProductStore source = new InMemoryProductStore();
+        source.save(new Product(0, "Cake", "Layers:\n- sponge, \"light\"\n- cream\n", 1, 1.0, 1, 1.0, null,
+                new Date(), true));
+        source.save(new Product(0, "Bread", "Plain", 1, 2.0, 1, 1.0, null, new Date(), true));
+        Path file = dir.resolve("multiline.csv");
+
+        source.exportCatalog(file, ImportFormat.CSV, false);
+        InMemoryProductStore target = new InMemoryProductStore();
+        ImportReport imported = new ProductImporter(target, 1, 1, 1).importFile(file, ImportFormat.CSV);
+
+        assertTrue(imported.isSuccessful());
+        assertEquals(2, imported.getImportedCount());
+        List<Product> products = target.findAll();
+        products.sort((a, b) -> Double.compare(a.getPrice(), b.getPrice()));
+        assertEquals("Layers:\n- sponge, \"light\"\n- cream\n", products.get(0).getDescription());
+        assertEquals("Plain", products.get(1).getDescription());
+    }
+}
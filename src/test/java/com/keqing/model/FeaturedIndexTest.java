@@ -0,0 +1,112 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeaturedIndexTest {
+
+    private static final Instant T0 = Instant.parse("2024-06-01T00:00:00Z");
+
+    private static Product product(int id) {
+        return new Product(id, "Product " + id, "", 1, 10.0, 5, 1.0, "", new Timestamp(0), true);
+    }
+
+    private static Timestamp at(long hours) {
+        return Timestamp.from(T0.plusSeconds(hours * 3600));
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFindFeatured_overlappingAndOpenWindows_matchesEveryInstant() {
+        FeaturedIndex index = new FeaturedIndex(Clock.fixed(T0, ZoneOffset.UTC), FeaturedIndexTest::product);
+        index.featuredAdded(1, at(0), at(10));
+        index.featuredAdded(2, at(5), at(15));
+        index.featuredAdded(3, null, at(5));
+        index.featuredAdded(4, at(12), null);
+        // A second window for the same product
+        index.featuredAdded(1, at(8), at(20));
+
+        assertEquals(List.of(3), ids(index.findFeatured(T0.minusSeconds(3600))));
+        assertEquals(List.of(1, 3), ids(index.findFeatured(at(0).toInstant())));
+        // Windows include their start and exclude their end
+        assertEquals(List.of(1, 2), ids(index.findFeatured(at(5).toInstant())));
+        assertEquals(List.of(1, 2, 4), ids(index.findFeatured(at(12).toInstant())));
+        assertEquals(List.of(1, 4), ids(index.findFeatured(at(15).toInstant())));
+        assertEquals(List.of(4), ids(index.findFeatured(at(20).toInstant())));
+        assertEquals(List.of(1, 3), ids(index.getCurrent()));
+
+        index.featuredRemoved(1);
+        assertEquals(List.of(2, 4), ids(index.findFeatured(at(12).toInstant())));
+        index.productDeleted(4);
+        assertEquals(List.of(2), ids(index.findFeatured(at(12).toInstant())));
+        index.close();
+    }
+
+    @Test
+    public void testGetCurrent_windowBoundariesPass_activatesAndExpires() throws Exception {
+        FeaturedIndex index = new FeaturedIndex(Clock.systemUTC(), FeaturedIndexTest::product);
+        Instant now = Instant.now();
+        index.featuredAdded(7, Timestamp.from(now.plusMillis(200)), Timestamp.from(now.plusMillis(400)));
+        assertTrue(index.getCurrent().isEmpty());
+
+        waitFor(index, List.of(7));
+        waitFor(index, List.of());
+        // The timer drops the window once it has ended
+        assertEquals(0, index.getWindowCount());
+        index.close();
+    }
+
+    @Test
+    public void testFeaturedAdded_afterWindowsEnded_prunesThem() {
+        Instant[] now = {T0};
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now[0];
+            }
+        };
+        FeaturedIndex index = new FeaturedIndex(clock, FeaturedIndexTest::product);
+        index.close();  // Stop the timer; this test moves the clock by hand
+        index.featuredAdded(1, at(0), at(2));
+        index.featuredAdded(2, at(0), null);
+        index.featuredAdded(3, null, at(1));
+        assertEquals(3, index.getWindowCount());
+
+        now[0] = at(2).toInstant();
+        index.featuredAdded(4, at(3), at(4));
+
+        assertEquals(2, index.getWindowCount());
+        assertEquals(now[0], index.getPrunedUntil());
+        assertEquals(List.of(2), ids(index.findFeatured(now[0])));
+        assertEquals(List.of(2, 4), ids(index.findFeatured(at(3).toInstant())));
+    }
+
+    private static void waitFor(FeaturedIndex index, List<Integer> expected) throws InterruptedException {
+        for (int attempt = 0; attempt < 200 && !ids(index.getCurrent()).equals(expected); attempt++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, ids(index.getCurrent()));
+    }
+}
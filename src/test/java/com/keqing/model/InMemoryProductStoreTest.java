@@ -0,0 +1,185 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryProductStoreTest {
+
+    private InMemoryProductStore store;
+
+    @BeforeEach
+    void init() {
+        store = new InMemoryProductStore();
+        store.createCategory("Cakes", "Sweet");
+        store.createCategory("Breads", "Savoury");
+    }
+
+    private Product product(String name, int category, double price, int stock, double weight) {
+        Product product = new Product(0, name, name + " description", category, price, stock, weight, "img", new Date(), true);
+        store.save(product);
+        return product;
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void testSave_assignsIdsAndReturnsCopies() {
+        Product cake = product("Chocolate Cake", 1, 12.5, 4, 1.0);
+
+        Product found = store.findById(cake.getId());
+        found.setName("Changed");
+
+        assertEquals(1, cake.getId());
+        assertEquals("Chocolate Cake", store.findById(cake.getId()).getName());
+        assertNull(store.findById(99));
+    }
+
+    @Test
+    void testRangeQueries_useSortedIndexes() {
+        Product a = product("A", 1, 5.0, 1, 0.5);
+        Product b = product("B", 2, 10.0, 8, 1.5);
+        Product c = product("C", 1, 15.0, 3, 2.5);
+
+        assertEquals(List.of(a.getId(), b.getId()), ids(store.findByPriceRange(5.0, 10.0)));
+        assertEquals(List.of(b.getId(), c.getId()), ids(store.findByWeightRange(1.0, 3.0)));
+        assertEquals(List.of(a.getId(), c.getId()), ids(store.findLowStock(5)));
+        assertTrue(store.findByPriceRange(20, 10).isEmpty());
+
+        store.updateStock(b.getId(), 0);
+        assertEquals(List.of(b.getId(), a.getId(), c.getId()), ids(store.findLowStock(5)));
+    }
+
+    @Test
+    void testUpdateAndDelete_keepIndexesAndCountsInStep() {
+        Product a = product("A", 1, 5.0, 1, 0.5);
+        Product b = product("B", 1, 10.0, 8, 1.5);
+
+        a.setCategoryId(2);
+        store.update(a);
+        store.delete(b.getId());
+
+        assertEquals(1, store.countProducts());
+        assertEquals(Map.of(2, 1), store.countProductsByCategory());
+        assertTrue(store.findByCategory(1).isEmpty());
+        assertEquals(List.of(a.getId()), ids(store.findByPriceRange(0, 100)));
+    }
+
+    @Test
+    void testFindPage_walksEveryProductOnce() {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            expected.add(product("P" + i, 1 + i % 2, 10 - i % 3, 1, 1).getId());
+        }
+
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Product> page = store.findPage(ProductSortOrder.PRICE_LOW_TO_HIGH, cursor, 3);
+            seen.addAll(ids(page.getItems()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected.size(), seen.size());
+        assertTrue(seen.containsAll(expected));
+        List<Double> prices = seen.stream().map(id -> store.findById(id).getPrice()).collect(Collectors.toList());
+        assertEquals(prices.stream().sorted().collect(Collectors.toList()), prices);
+    }
+
+    @Test
+    void testFindPageByCategory_followsMovesBetweenCategories() {
+        Product a = product("A", 1, 5.0, 1, 1);
+        Product b = product("B", 2, 6.0, 1, 1);
+        Product c = product("C", 1, 7.0, 1, 1);
+        Product d = product("D", 1, 8.0, 1, 1);
+
+        b.setCategoryId(1);
+        store.update(b);
+        store.delete(c.getId());
+
+        Page<Product> first = store.findPageByCategory(1, ProductSortOrder.PRICE_LOW_TO_HIGH, null, 2);
+        assertEquals(List.of(a.getId(), b.getId()), ids(first.getItems()));
+        Page<Product> second = store.findPageByCategory(1, ProductSortOrder.PRICE_LOW_TO_HIGH,
+                first.getNextCursor(), 2);
+        assertEquals(List.of(d.getId()), ids(second.getItems()));
+        assertNull(second.getNextCursor());
+        assertTrue(store.findPageByCategory(2, ProductSortOrder.NEWEST_FIRST, null, 2).getItems().isEmpty());
+    }
+
+    @Test
+    void testProductDetails_includeCategoryAndReviews() {
+        Product cake = product("Cake", 1, 12.5, 4, 1.0);
+        store.addReview(cake.getId(), 5, "Great");
+        store.addReview(cake.getId(), 3, "Fine");
+
+        ProductDetail detail = store.getProductDetails(cake.getId());
+
+        assertEquals("Cakes", detail.getCategoryName());
+        assertEquals(2, detail.getReviews().size());
+        assertNull(store.getProductDetails(-1));
+    }
+
+    @Test
+    void testChangeListener_receivesWrites() {
+        List<String> events = new ArrayList<>();
+        store.addChangeListener(new ProductChangeListener() {
+            @Override
+            public void productSaved(Product product) {
+                events.add("saved " + product.getId());
+            }
+
+            @Override
+            public void productDeleted(int productId) {
+                events.add("deleted " + productId);
+            }
+        });
+
+        Product cake = product("Cake", 1, 12.5, 4, 1.0);
+        store.delete(cake.getId());
+        store.delete(cake.getId());
+
+        assertEquals(List.of("saved 1", "deleted 1"), events);
+    }
+
+    @Test
+    void testReviews_summaryUpdatedIncrementallyAndPagedNewestFirst() {
+        Product cake = product("Cake", 1, 12.5, 4, 1.0);
+        int[] stars = {5, 4, 5, 3, 5, 1, 4};
+        for (int star : stars) {
+            store.addReview(cake.getId(), star, "Review " + star);
+        }
+
+        RatingSummary summary = store.getRatingSummary(cake.getId());
+        assertEquals(7, summary.getCount());
+        assertEquals(27 / 7.0, summary.getAverage(), 1e-9);
+        assertEquals(3, summary.getStarCount(5));
+        assertEquals(0, summary.getStarCount(2));
+        assertEquals(RatingSummary.EMPTY, store.getRatingSummary(99));
+
+        List<Integer> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            Page<Review> page = store.findReviews(cake.getId(), cursor, 3);
+            assertTrue(page.getItems().size() <= 3);
+            page.getItems().forEach(review -> seen.add(review.getRevId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of(7, 6, 5, 4, 3, 2, 1), seen);
+
+        ProductDetail detail = store.getProductDetails(cake.getId(), 2);
+        assertEquals(2, detail.getReviews().size());
+        assertNotNull(detail.getNextReviewCursor());
+        assertEquals(summary, detail.getRatingSummary());
+        String otherProduct = detail.getNextReviewCursor();
+        assertThrows(IllegalArgumentException.class, () -> store.findReviews(99, otherProduct, 2));
+    }
+}
@@ -0,0 +1,64 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadingListenerTest {
+
+    private static Product product(int id, String name, int stock) {
+        return new Product(id, name, "", 1, 10, stock, 1, "img", new Date(), true);
+    }
+
+    @Test
+    void testRelease_eventsDuringLoad_appliedAfterOlderRows() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        LoadingListener listener = new LoadingListener(index);
+        listener.hold();
+
+        // Writes that happen while the catalog is being read
+        listener.productDeleted(1);
+        listener.productUpdated(product(2, "Fresh", 5));
+        listener.stockAdjusted(3, -2);
+        listener.stockAdjusted(3, -1);
+
+        // Rows the load read before those writes
+        index.add(product(1, "Deleted", 5));
+        index.add(product(2, "Stale", 5));
+        index.add(product(3, "Reserved", 10));
+        listener.release(id -> id == 3 ? product(3, "Reserved", 7) : null);
+
+        assertTrue(index.search("Deleted", 10).isEmpty());
+        assertTrue(index.search("Stale", 10).isEmpty());
+        assertEquals(1, index.search("Fresh", 10).size());
+        // Re-read rather than applying the deltas to a row that may already include them
+        assertEquals(7, index.search("Reserved", 10).get(0).getStockQuantity());
+
+        // Forwarded directly once released
+        listener.productDeleted(2);
+        assertEquals(List.of(3), index.search("Reserved", 10).stream().map(Product::getId).toList());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testRelease_snapshotReloaded_deletedProductStaysDeleted() {
+        CatalogSnapshot snapshot = new CatalogSnapshot();
+        LoadingListener listener = new LoadingListener(snapshot);
+        listener.hold();
+
+        listener.productDeleted(1);
+        listener.productSaved(product(3, "New", 1));
+        // load replaces the whole snapshot with rows read before the events
+        snapshot.load(List.of(product(1, "Deleted", 5), product(2, "Kept", 5)));
+        listener.release(id -> null);
+
+        assertEquals(2, snapshot.size());
+        assertEquals(Set.of(2, 3),
+                snapshot.findByPriceRange(0, 100).stream().map(Product::getId).collect(Collectors.toSet()));
+    }
+}
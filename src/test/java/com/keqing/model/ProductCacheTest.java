@@ -0,0 +1,47 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCacheTest {
+
+    @Test
+    public void testGetProduct_callerMutatesResult_cachedEntryUnchanged() {
+        ProductCache cache = new ProductCache(10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        Product first = cache.getProduct(1, id -> {
+            loads.incrementAndGet();
+            return new Product(id, "Cake", "desc", 1, 10.0, 5, 1.0, "img", new Date(), true);
+        });
+        first.setName("Changed by caller");
+        first.setStockQuantity(0);
+        Product second = cache.getProduct(1, id -> fail("should be cached"));
+
+        assertEquals(1, loads.get());
+        assertNotSame(first, second);
+        assertEquals("Cake", second.getName());
+        assertEquals(5, second.getStockQuantity());
+    }
+
+    @Test
+    public void testGetProductDetails_callerMutatesResult_cachedEntryUnchanged() {
+        ProductCache cache = new ProductCache(10, 60_000);
+        ProductDetail first = cache.getProductDetails(1, id -> {
+            ProductDetail detail = new ProductDetail(
+                    new Product(id, "Cake", "desc", 1, 10.0, 5, 1.0, "img", new Date(), true), "Cakes");
+            detail.getReviews().add(new Review(1, id, 5, "Great", null));
+            return detail;
+        });
+        first.getProduct().setPrice(0);
+        first.getReviews().clear();
+
+        ProductDetail second = cache.getProductDetails(1, id -> fail("should be cached"));
+        assertEquals(10.0, second.getProduct().getPrice());
+        assertEquals(1, second.getReviews().size());
+    }
+}
@@ -0,0 +1,101 @@
+package com.keqing.model;
+
+import com.keqing.db.ConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCountersTest {
+
+    private ConnectionPool pool;
+    private ProductCounters counters;
+
+    @BeforeEach
+    void init() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:counters;DB_CLOSE_DELAY=-1", "sa", "", 0, 4, 60_000, 1_000);
+        execute("CREATE TABLE products (id INT PRIMARY KEY, category INT)");
+        execute("INSERT INTO products VALUES (1, 1), (2, 1), (3, 2)");
+        counters = new ProductCounters(pool, 0);
+        counters.reconcile();
+    }
+
+    @AfterEach
+    void cleanup() throws SQLException {
+        counters.close();
+        execute("DROP TABLE products");
+        pool.close();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private void awaitTotal(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (counters.getTotal() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, counters.getTotal());
+    }
+
+    @Test
+    public void testReconcile_countsByCategory() {
+        assertEquals(3, counters.getTotal());
+        assertEquals(Map.of(1, 2, 2, 1), counters.getCountsByCategory());
+        assertEquals(1, counters.getReconcileCount());
+    }
+
+    @Test
+    public void testProductSaved_appliedImmediately() throws SQLException {
+        execute("INSERT INTO products VALUES (4, 3)");
+        counters.productSaved(new Product(4, "Cake", "desc", 3, 1.0, 1, 1.0, "img", new Date(), true));
+
+        assertEquals(4, counters.getTotal());
+        assertEquals(1, counters.getCountsByCategory().get(3));
+    }
+
+    @Test
+    public void testProductDeleted_recountedInBackground() throws Exception {
+        execute("DELETE FROM products WHERE id = 3");
+        long start = System.nanoTime();
+        counters.productDeleted(3);
+        counters.productDeleted(42);
+        // The writer's thread does not wait for the recount
+        assertTrue(System.nanoTime() - start < ProductCounters.RECOUNT_DELAY_MILLIS * 1_000_000);
+
+        awaitTotal(2);
+        assertEquals(Map.of(1, 2), counters.getCountsByCategory());
+        assertEquals(2, counters.getReconcileCount());
+        assertEquals(0, counters.getDriftCorrectionCount());
+    }
+
+    @Test
+    public void testPreviousCategoryReported_appliedImmediately() {
+        counters.productUpdated(new Product(1, "Cake", "desc", 3, 1.0, 1, 1.0, "img", new Date(), true), 1);
+        counters.productDeleted(3, 2);
+
+        assertEquals(Map.of(1, 1, 3, 1), counters.getCountsByCategory());
+        assertEquals(2, counters.getTotal());
+        assertEquals(1, counters.getReconcileCount());
+    }
+
+    @Test
+    public void testReconcile_outsideWrite_countsDrift() throws SQLException {
+        execute("INSERT INTO products VALUES (5, 2)");
+        counters.reconcile();
+
+        assertEquals(4, counters.getTotal());
+        assertEquals(1, counters.getDriftCorrectionCount());
+    }
+}
@@ -0,0 +1,57 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCursorTest {
+
+    @Test
+    void testNewestFirstCursor_RoundTripsTimestampAndId() {
+        Timestamp createdAt = Timestamp.valueOf("2024-09-01 10:15:30.123456789");
+        Product product = new Product(42, "Honey Bun", "Sweet Honey Buns", 1, 200, 5, 5, "img", createdAt, true);
+
+        String token = ProductCursor.encode(ProductSortOrder.NEWEST_FIRST, product);
+        ProductCursor cursor = ProductCursor.decode(ProductSortOrder.NEWEST_FIRST, token);
+
+        assertEquals(42, cursor.getId());
+        assertEquals(createdAt, cursor.sortValue(), "The cursor must keep the full timestamp precision");
+    }
+
+    @Test
+    void testPriceCursor_RoundTripsPriceAndId() {
+        Product product = new Product(7, "Rye Loaf", "Dark rye", 2, 4.1, 5, 1, "img", new Timestamp(0), true);
+
+        String token = ProductCursor.encode(ProductSortOrder.PRICE_LOW_TO_HIGH, product);
+        ProductCursor cursor = ProductCursor.decode(ProductSortOrder.PRICE_LOW_TO_HIGH, token);
+
+        assertEquals(7, cursor.getId());
+        assertEquals(new BigDecimal("4.1"), cursor.sortValue());
+    }
+
+    @Test
+    void testDecode_RejectsCursorFromAnotherOrdering() {
+        Product product = new Product(7, "Rye Loaf", "Dark rye", 2, 4.1, 5, 1, "img", new Timestamp(0), true);
+        String token = ProductCursor.encode(ProductSortOrder.PRICE_LOW_TO_HIGH, product);
+
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(ProductSortOrder.NEWEST_FIRST, token));
+    }
+
+    @Test
+    void testDecode_RejectsGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(ProductSortOrder.NEWEST_FIRST, "not a cursor"));
+    }
+
+    @Test
+    void testDecode_RejectsTimestampWithoutNanos() {
+        String token = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("NEWEST_FIRST|1725185730123|42".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(ProductSortOrder.NEWEST_FIRST, token));
+    }
+}
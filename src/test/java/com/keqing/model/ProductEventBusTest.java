@@ -0,0 +1,126 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductEventBusTest {
+
+    @Test
+    public void testSubscribe_storeWrites_deliveredInOrderWithTypes() throws Exception {
+        InMemoryProductStore store = new InMemoryProductStore();
+        try (ProductEventBus bus = new ProductEventBus(64)) {
+            store.addChangeListener(bus);
+            List<String> received = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(1);
+            bus.subscribe("test", (event, endOfBatch) -> {
+                received.add(event.getType() + ":" + event.getValue());
+                if (event.getType() == ProductChangeEvent.Type.PRODUCT_DELETED) {
+                    done.countDown();
+                }
+            });
+
+            store.createCategory("Cakes", "Sweet");
+            Product cake = new Product(0, "Cake", "desc", 1, 10.0, 5, 1.0, "img", new Date(), true);
+            store.save(cake);
+            store.updateStock(cake.getId(), 3);
+            store.delete(cake.getId());
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("CATEGORY_CREATED:0", "PRODUCT_SAVED:0", "STOCK_UPDATED:3", "PRODUCT_DELETED:0"),
+                    received);
+        }
+    }
+
+    @Test
+    public void testPublish_slowSubscriber_writersNotBlockedAndDropsCounted() throws Exception {
+        try (ProductEventBus bus = new ProductEventBus(16)) {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicLong lastSequence = new AtomicLong(-1);
+            AtomicLong reportedDrops = new AtomicLong();
+            ProductEventBus.Subscription slow = bus.subscribe("slow", new ProductEventHandler() {
+                @Override
+                public void onEvent(ProductChangeEvent event, boolean endOfBatch) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    assertTrue(event.getSequence() > lastSequence.get());
+                    lastSequence.set(event.getSequence());
+                }
+
+                @Override
+                public void onDropped(long count) {
+                    reportedDrops.addAndGet(count);
+                }
+            }, 4);
+
+            ExecutorService writers = Executors.newFixedThreadPool(4);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                futures.add(writers.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        bus.stockAdjusted(i, -1);
+                    }
+                }));
+            }
+            // Finishes although the subscriber is stuck on its first batch
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            writers.shutdown();
+            release.countDown();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (slow.getLag() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(4000, bus.getPublishedCount());
+            assertEquals(0, slow.getLag());
+            assertTrue(slow.getDroppedCount() > 0);
+            assertEquals(slow.getDroppedCount(), reportedDrops.get());
+            assertEquals(4000, slow.getDeliveredCount() + slow.getDroppedCount());
+            assertEquals(3999, lastSequence.get());
+        }
+    }
+
+    @Test
+    public void testSubscribe_handlerThrowsError_subscriptionStoppedAndRemoved() throws Exception {
+        try (ProductEventBus bus = new ProductEventBus(16)) {
+            List<Integer> received = new ArrayList<>();
+            ProductEventBus.Subscription failing = bus.subscribe("failing", (event, endOfBatch) -> {
+                if (event.getProductId() == 2) {
+                    throw new StackOverflowError("handler broke");
+                }
+                if (event.getProductId() == 1) {
+                    throw new IllegalStateException("skipped");
+                }
+                received.add(event.getProductId());
+            }, 1);
+
+            for (int id = 0; id < 4; id++) {
+                bus.productDeleted(id);
+            }
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (failing.isRunning() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(failing.isRunning());
+            assertTrue(bus.getSubscriptions().isEmpty());
+            // The exception is skipped over, the error ends delivery
+            assertEquals(List.of(0), received);
+        }
+    }
+}
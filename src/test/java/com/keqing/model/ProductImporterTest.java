@@ -0,0 +1,119 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductImporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testImportFile_csv_importsValidRowsAndReportsRejects() throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("name,category,price,stock_quantity,description");
+        for (int i = 0; i < 250; i++) {
+            lines.add("\"Cake " + i + "\",1," + (i + 0.5) + ",3,\"Rich, \"\"dark\"\" chocolate\"");
+        }
+        lines.add("Broken,1,not-a-price,3,x");
+        lines.add("");
+        lines.add(",1,2.0,3,no name");
+        Path file = Files.write(dir.resolve("products.csv"), lines);
+
+        InMemoryProductStore store = new InMemoryProductStore();
+        ImportReport report = new ProductImporter(store, 3, 2, 40).importFile(file, ImportFormat.CSV);
+
+        assertEquals(252, report.getRowsRead());
+        assertEquals(250, report.getImportedCount());
+        assertEquals(2, report.getRejectedCount());
+        assertEquals(0, report.getFailedCount());
+        assertFalse(report.isSuccessful());
+        assertTrue(report.getRejects().contains("line 252: invalid price: not-a-price"));
+        assertTrue(report.getRejects().contains("line 254: missing name"));
+        assertEquals(250, store.countProducts());
+        assertEquals("Rich, \"dark\" chocolate", store.findAll().get(0).getDescription());
+    }
+
+    @Test
+    public void testImportFile_quotedLineBreaks_keepRecordsAndLineNumbers() throws Exception {
+        Path file = Files.write(dir.resolve("multiline.csv"), List.of(
+                "name,category,price,description",
+                "Cake,1,2.5,\"first line",
+                "second line\"",
+                "Broken,1,oops,x",
+                "Monitor,1,3.0,24\" screen",
+                "Bread,1,1.5,\"never closed",
+                "Roll,1,1.0,x",
+                "Bun,1,1.0,x"));
+
+        InMemoryProductStore store = new InMemoryProductStore();
+        ImportReport report = new ProductImporter(store, 2, 1, 2).importFile(file, ImportFormat.CSV);
+
+        assertEquals(6, report.getRowsRead());
+        assertEquals(4, report.getImportedCount());
+        assertEquals(List.of("line 4: invalid price: oops", "line 6: quoted field not closed"),
+                report.getRejects().stream().sorted().toList());
+        Map<String, String> descriptions = store.findAll().stream()
+                .collect(Collectors.toMap(Product::getName, Product::getDescription));
+        assertEquals("first line\nsecond line", descriptions.get("Cake"));
+        // A quote inside an unquoted field is kept, and reading resumes after the unclosed one
+        assertEquals("24\" screen", descriptions.get("Monitor"));
+        assertEquals(Set.of("Cake", "Monitor", "Roll", "Bun"), descriptions.keySet());
+    }
+
+    @Test
+    public void testImportFile_writerDiesOnError_failsInsteadOfHanging() throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("name,category,price");
+        for (int i = 0; i < 500; i++) {
+            lines.add("Cake " + i + ",1,2.5");
+        }
+        Path file = Files.write(dir.resolve("products.csv"), lines);
+
+        InMemoryProductStore store = new InMemoryProductStore() {
+            @Override
+            public BulkInsertReport saveAll(List<Product> products, int chunkSize) {
+                throw new StackOverflowError("writer failed");
+            }
+        };
+        // Small queues, so the reader fills them long before the end of the file
+        ProductImporter importer = new ProductImporter(store, 1, 1, 5);
+
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IOException.class, () -> importer.importFile(file, ImportFormat.CSV)));
+        assertInstanceOf(StackOverflowError.class, e.getCause());
+    }
+
+    @Test
+    public void testImportFile_jsonLines_appliesDefaults() throws Exception {
+        Path file = Files.write(dir.resolve("products.jsonl"), List.of(
+                "{\"name\": \"Baguette\", \"category\": 2, \"price\": 2.5, \"is_available\": false}",
+                "{\"name\": \"Bagel\", \"category\": 2, \"price\": 1.25, \"stock_quantity\": 12}",
+                "{\"name\": \"Loaf\", \"category\": 2",
+                "{\"name\": \"Roll\", \"category\": 0, \"price\": 1}"));
+
+        InMemoryProductStore store = new InMemoryProductStore();
+        ImportReport report = new ProductImporter(store).importFile(file, ImportFormat.JSON_LINES);
+
+        assertEquals(2, report.getImportedCount());
+        assertEquals(2, report.getRejectedCount());
+        assertEquals(2, report.getRejects().size());
+        List<Product> products = store.findAll();
+        assertEquals(2, products.size());
+        Product baguette = products.stream().filter(p -> p.getName().equals("Baguette")).findFirst().get();
+        assertFalse(baguette.isAvailable());
+        assertEquals(0, baguette.getStockQuantity());
+    }
+}
@@ -2,19 +2,28 @@ package com.keqing.model;
 
 import org.junit.jupiter.api.*;
 
-import java.sql.Timestamp;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class ProductRepositoryTest {
 
+    private TestDatabase database;
     private ProductRepository productRepository;
 
     @BeforeEach
-    void init() {
-        //assuming this is the valid database
-        productRepository = new ProductRepository("jdbc:h2:mem:testdb", "sa", "password");
+    void init() throws SQLException {
+        database = new TestDatabase("repository", 4);
+        productRepository = database.repository;
+    }
+
+    private static Product product(String name, double price) {
+        return new Product(0, name, name + " description", 1, price, 5, 1.0, "img", new Date(), true);
     }
 
     @Test
@@ -25,10 +34,184 @@ class ProductRepositoryTest {
         assertNull(result, "Product Detail must be null for invalid product id");
     }
 
-    //You can add more similar test cases
+    @Test
+    void testSaveAll_failedChunk_rolledBackAndOthersCommitted() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            // The price check rejects the third product, and with it the second chunk
+            products.add(product("P" + i, i == 2 ? -1 : i));
+        }
+
+        BulkInsertReport report = productRepository.saveAll(products, 2);
+
+        assertFalse(report.isSuccessful());
+        assertEquals(3, report.getInsertedCount());
+        assertEquals(2, report.getFailedCount());
+        assertEquals(List.of(true, false, true),
+                report.getChunks().stream().map(BulkInsertReport.ChunkResult::isSuccessful).toList());
+        assertEquals(3, productRepository.countProducts());
+        assertTrue(products.get(0).getId() > 0);
+        assertEquals(0, products.get(3).getId());
+        assertEquals("P4", productRepository.findById(products.get(4).getId()).getName());
+    }
+
+    @Test
+    void testSaveAll_connectionFails_everyChunkReportedFailed() {
+        List<Product> products = List.of(product("A", 1), product("B", 2), product("C", 3));
+        database.pool.close();
+
+        BulkInsertReport report = productRepository.saveAll(products, 2);
+
+        assertFalse(report.isSuccessful());
+        assertEquals(0, report.getInsertedCount());
+        assertEquals(3, report.getFailedCount());
+        assertEquals(2, report.getChunks().size());
+        assertTrue(report.getChunks().get(1).getError().contains("closed"));
+    }
+
+    @Test
+    void testSaveAll_empty_successful() {
+        assertTrue(productRepository.saveAll(List.of(), 2).isSuccessful());
+    }
+
+    @Test
+    void testEnableSearchIndex_followsWritesUntilDisabled() {
+        productRepository.save(product("Rye Loaf", 3));
+        ProductSearchIndex index = productRepository.enableSearchIndex();
+        productRepository.save(product("Rye Roll", 2));
+        assertEquals(2, index.search("rye", 10).size());
+
+        productRepository.disableSearchIndex();
+        productRepository.save(product("Rye Bun", 1));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testEnableCounters_updatesAndDeletesAppliedWithoutRecount() throws SQLException {
+        Product cake = product("Cake", 1);
+        Product bread = product("Bread", 2);
+        productRepository.save(cake);
+        productRepository.save(bread);
+        ProductCounters counters = productRepository.enableCounters(0);
+
+        cake.setCategoryId(2);
+        productRepository.update(cake);
+        assertEquals(Map.of(1, 1, 2, 1), counters.getCountsByCategory());
+        productRepository.delete(bread.getId());
+        productRepository.delete(bread.getId());
+        assertEquals(Map.of(2, 1), counters.getCountsByCategory());
+        assertEquals(1, counters.getTotal());
+        assertEquals(1, counters.getReconcileCount());
+    }
+
+    private void saveProducts(int count) {
+        for (int i = 0; i < count; i++) {
+            productRepository.save(product("P" + i, i));
+        }
+    }
+
+    // Every connection the stream borrowed is back in the pool, none still out
+    private void assertConnectionsReleased(int idleBefore) {
+        assertEquals(0, database.pool.getActiveCount());
+        assertEquals(idleBefore, database.pool.getIdleCount());
+    }
+
+    @Test
+    void testStreamAll_closedEarly_connectionReleased() {
+        saveProducts(5);
+        productRepository.setStreamFetchSize(2);
+        int idle = database.pool.getIdleCount();
+
+        try (Stream<Product> products = productRepository.streamAll()) {
+            assertEquals(2, products.limit(2).count());
+            assertEquals(1, database.pool.getActiveCount());
+        }
+        assertConnectionsReleased(idle);
+    }
+
+    @Test
+    void testStreamAll_exhausted_connectionReleasedBeforeClose() {
+        saveProducts(5);
+        int idle = database.pool.getIdleCount();
+
+        Stream<Product> products = productRepository.streamAll();
+        assertEquals(5, products.count());
+        assertConnectionsReleased(idle);
+        products.close();
+        assertConnectionsReleased(idle);
+
+        List<String> names = new ArrayList<>();
+        productRepository.forEachProduct(product -> names.add(product.getName()));
+        assertEquals(5, names.size());
+        assertConnectionsReleased(idle);
+    }
+
+    @Test
+    void testForEachProduct_sqlErrorPartway_connectionReleased() throws SQLException {
+        saveProducts(3);
+        // A stock quantity that cannot be read as a number fails the mapping of the fourth row
+        database.execute("ALTER TABLE products ALTER COLUMN stock_quantity SET DATA TYPE VARCHAR(20)");
+        database.execute("INSERT INTO products (name, category, price, stock_quantity) VALUES ('Bad', 1, 1, 'lots')");
+        int idle = database.pool.getIdleCount();
+
+        List<String> names = new ArrayList<>();
+        assertThrows(IllegalStateException.class,
+                () -> productRepository.forEachProduct(product -> names.add(product.getName())));
+        assertEquals(3, names.size());
+        assertConnectionsReleased(idle);
+    }
+
+    @Test
+    void testGetProductDetails_batch_requestOrderWithoutMissingOrDuplicates() {
+        productRepository.createCategory("Cakes", "Sweet");
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Product product = product("P" + i, i);
+            productRepository.save(product);
+            ids.add(product.getId());
+        }
+        productRepository.addReview(ids.get(1), 5, "Great");
+        productRepository.addReview(ids.get(1), 3, "Fine");
+        productRepository.addReview(ids.get(2), 4, "Good");
+
+        // Five distinct ids are padded to an IN list of eight by repeating the last one, ids.get(2)
+        List<ProductDetail> details = productRepository.getProductDetails(
+                List.of(ids.get(5), -1, ids.get(1), ids.get(3), ids.get(1), ids.get(2)));
+
+        assertEquals(List.of(ids.get(5), ids.get(1), ids.get(3), ids.get(2)),
+                details.stream().map(detail -> detail.getProduct().getId()).toList());
+        assertEquals("Cakes", details.get(0).getCategoryName());
+        assertEquals(2, details.get(1).getReviews().size());
+        assertEquals(4.0, details.get(1).getRatingSummary().getAverage());
+        assertEquals(1, details.get(3).getReviews().size());
+        assertTrue(productRepository.getProductDetails(List.of()).isEmpty());
+    }
+
+    @Test
+    void testGetProductDetails_moreIdsThanOneInList_everyBatchLoaded() {
+        productRepository.createCategory("Cakes", "Sweet");
+        Product first = product("First", 1);
+        Product last = product("Last", 2);
+        productRepository.save(first);
+        productRepository.save(last);
+
+        // 512 ids fill the first IN list; the last three go to a second one, padded to four
+        List<Integer> ids = new ArrayList<>();
+        ids.add(first.getId());
+        for (int i = 0; i < 513; i++) {
+            ids.add(10_000 + i);
+        }
+        ids.add(last.getId());
+
+        List<ProductDetail> details = productRepository.getProductDetails(ids);
+
+        assertEquals(List.of(first.getId(), last.getId()),
+                details.stream().map(detail -> detail.getProduct().getId()).toList());
+    }
 
     @AfterEach
-    void cleanup() {
-        //Here you should cleanup the DB to its previous state. 
+    void cleanup() throws SQLException {
+        //Here you should cleanup the DB to its previous state.
+        database.close();
     }
-}
\ No newline at end of file
+}
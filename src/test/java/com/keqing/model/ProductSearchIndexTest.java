@@ -0,0 +1,81 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void init() {
+        index = new ProductSearchIndex();
+        index.add(product(1, "Chocolate Rainbow Cake", "Layered sponge with dark chocolate"));
+        index.add(product(2, "Honey Bun", "Sweet honey buns with a hint of chocolate"));
+        index.add(product(3, "Rye Loaf", "Dark rye bread"));
+    }
+
+    private static Product product(int id, String name, String description) {
+        return new Product(id, name, description, 1, 10, 5, 1, "img", new Date(), true);
+    }
+
+    private static int[] ids(List<Product> products) {
+        return products.stream().mapToInt(Product::getId).toArray();
+    }
+
+    @Test
+    void testSearch_NameMatchRanksAboveDescriptionMatch() {
+        assertArrayEquals(new int[]{1, 2}, ids(index.search("chocolate", 10)));
+    }
+
+    @Test
+    void testSearch_PartialWordsMatchAnywhereInToken() {
+        assertArrayEquals(new int[]{1}, ids(index.search("rainb", 10)), "Prefix match");
+        assertArrayEquals(new int[]{1}, ids(index.search("inbow", 10)), "Infix match");
+        assertArrayEquals(new int[]{2}, ids(index.search("ho", 10)), "Short prefix match");
+    }
+
+    @Test
+    void testSearch_AllTermsMustMatch() {
+        assertArrayEquals(new int[]{3}, ids(index.search("DARK rye", 10)));
+        assertEquals(0, index.search("honey rye", 10).size());
+    }
+
+    @Test
+    void testSearch_TermsSharingGramsButNotContiguousDoNotMatch() {
+        index.add(product(4, "Abcxbcd", ""));
+        assertEquals(0, index.search("abcd", 10).size());
+    }
+
+    @Test
+    void testUpdateAndRemove_KeepIndexCurrent() {
+        index.productUpdated(product(2, "Cinnamon Roll", "Sticky"));
+        assertEquals(0, index.search("honey", 10).size());
+        assertArrayEquals(new int[]{2}, ids(index.search("cinna", 10)));
+
+        index.productDeleted(1);
+        assertArrayEquals(new int[]{}, ids(index.search("rainbow", 10)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testSearch_RespectsLimit() {
+        assertEquals(1, index.search("dark", 1).size());
+    }
+
+    @Test
+    void testStockUpdated_ReplacesProductInsteadOfChangingReturnedOne() {
+        Product before = index.search("rye", 10).get(0);
+
+        index.stockUpdated(3, 42);
+        index.stockAdjusted(3, -2);
+
+        assertEquals(5, before.getStockQuantity());
+        assertEquals(40, index.search("rye", 10).get(0).getStockQuantity());
+    }
+}
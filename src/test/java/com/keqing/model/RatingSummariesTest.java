@@ -0,0 +1,61 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingSummariesTest {
+
+    private static final int PRODUCT = 7;
+
+    // What addReview does around its insert
+    private static void addReview(RatingSummaries summaries, int star) {
+        summaries.beginReview(PRODUCT);
+        try {
+            summaries.reviewAdded(PRODUCT, star);
+        } finally {
+            summaries.endReview(PRODUCT);
+        }
+    }
+
+    @Test
+    public void testGet_reviewAddedDuringLoad_notKept() {
+        RatingSummaries summaries = new RatingSummaries();
+        AtomicInteger loads = new AtomicInteger();
+
+        // The review is written while the first load is reading the table, and the load sees it
+        RatingSummary first = summaries.get(PRODUCT, id -> {
+            loads.incrementAndGet();
+            addReview(summaries, 5);
+            return RatingSummary.of(0, 0, 0, 0, 1);
+        });
+
+        assertEquals(1, first.getCount());
+        assertEquals(0, summaries.size());
+        assertEquals(1, summaries.get(PRODUCT, id -> {
+            loads.incrementAndGet();
+            return RatingSummary.of(0, 0, 0, 0, 1);
+        }).getCount());
+        assertEquals(2, loads.get());
+        assertEquals(1, summaries.size());
+    }
+
+    @Test
+    public void testGet_loadBetweenInsertAndEvent_reviewCountedOnce() {
+        RatingSummaries summaries = new RatingSummaries();
+
+        // The insert has committed but reviewAdded has not been fired yet
+        summaries.beginReview(PRODUCT);
+        assertEquals(1, summaries.get(PRODUCT, id -> RatingSummary.of(0, 0, 0, 0, 1)).getCount());
+        summaries.reviewAdded(PRODUCT, 5);
+        summaries.endReview(PRODUCT);
+
+        assertEquals(1, summaries.get(PRODUCT, id -> RatingSummary.of(0, 0, 0, 0, 1)).getCount());
+        addReview(summaries, 3);
+        RatingSummary summary = summaries.get(PRODUCT, id -> fail("Summary should be kept"));
+        assertEquals(2, summary.getCount());
+        assertEquals(4.0, summary.getAverage());
+    }
+}
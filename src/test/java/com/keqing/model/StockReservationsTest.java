@@ -0,0 +1,115 @@
+package com.keqing.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StockReservationsTest {
+
+    @Test
+    public void testReserve_concurrentRequests_neverOversellAndCombine() throws Exception {
+        AtomicInteger stock = new AtomicInteger(100);
+        StockReservations reservations = new StockReservations((productId, quantity) -> {
+            // Stands in for the database round trip
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (stock) {
+                if (stock.get() < quantity) {
+                    return false;
+                }
+                stock.addAndGet(-quantity);
+                return true;
+            }
+        });
+
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int quantity = 1 + i % 2;
+            futures.add(executor.submit(() -> {
+                if (reservations.reserve(42, quantity)) {
+                    granted.addAndGet(quantity);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        StockContention contention = reservations.getContention(42);
+        assertEquals(100, granted.get());
+        assertEquals(0, stock.get());
+        assertEquals(300, contention.getRequestCount());
+        assertEquals(300, contention.getGrantedCount() + contention.getRejectedCount());
+        assertTrue(contention.getCombinedCount() > 0);
+        assertTrue(contention.getBatchCount() < 300);
+        assertEquals(List.of(contention), reservations.getHottest(5));
+        assertNull(reservations.getContention(7));
+    }
+
+    @Test
+    public void testReserve_virtualThreads_allWaitersComplete() throws Exception {
+        AtomicInteger stock = new AtomicInteger(500);
+        StockReservations reservations = new StockReservations((productId, quantity) -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return stock.getAndUpdate(left -> left >= quantity ? left - quantity : left) >= quantity;
+        });
+
+        AtomicInteger granted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        // Far more waiters than carrier threads; they must park without holding a carrier
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 2000; i++) {
+                int productId = i % 3;
+                futures.add(executor.submit(() -> {
+                    if (reservations.reserve(productId, 1)) {
+                        granted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        assertEquals(500, granted.get());
+        assertEquals(0, stock.get());
+    }
+
+    @Test
+    public void testReserve_batchDoesNotFit_grantsOldestRequestsThatFit() throws Exception {
+        AtomicInteger stock = new AtomicInteger(3);
+        StockReservations reservations = new StockReservations((productId, quantity) -> {
+            if (stock.get() < quantity) {
+                return false;
+            }
+            stock.addAndGet(-quantity);
+            return true;
+        });
+
+        assertTrue(reservations.reserve(1, 2));
+        assertFalse(reservations.reserve(1, 2));
+        assertTrue(reservations.reserve(1, 1));
+        assertEquals(0, stock.get());
+        assertEquals(1, reservations.getContention(1).getRejectedCount());
+    }
+}
@@ -0,0 +1,102 @@
+package com.keqing.model;
+
+import com.keqing.db.ConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StockWriteBehindTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void init() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:writebehind;DB_CLOSE_DELAY=-1", "sa", "", 0, 4, 60_000, 1_000);
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE products (id INT PRIMARY KEY, stock_quantity INT)");
+            stmt.execute("INSERT INTO products VALUES (1, 10), (2, 20)");
+        }
+    }
+
+    @AfterEach
+    void cleanup() throws SQLException {
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE products");
+        }
+        pool.close();
+    }
+
+    private int stockOf(int productId) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT stock_quantity FROM products WHERE id = " + productId)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    @Test
+    public void testFlush_coalescedSubmits_writesLatestAndSkipsCancelled() throws SQLException {
+        try (StockWriteBehind writeBehind = new StockWriteBehind(pool, 100, 60_000, (id, stock) -> {})) {
+            writeBehind.submit(1, 7);
+            writeBehind.submit(1, 5);
+            writeBehind.submit(2, 3);
+            writeBehind.cancel(2);
+            writeBehind.flush();
+
+            assertEquals(5, stockOf(1));
+            assertEquals(20, stockOf(2));
+            assertEquals(1, writeBehind.getCoalescedCount());
+            assertEquals(1, writeBehind.getFlushedRowCount());
+            assertEquals(0, writeBehind.getPendingCount());
+        }
+    }
+
+    @Test
+    public void testCancel_flushInProgress_waitsForFlushToFinish() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (StockWriteBehind writeBehind = new StockWriteBehind(pool, 100, 60_000, (id, stock) -> {
+            flushing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            writeBehind.submit(1, 4);
+            Thread flusher = new Thread(() -> {
+                try {
+                    writeBehind.flush();
+                } catch (SQLException e) {
+                    fail(e);
+                }
+            });
+            flusher.start();
+            assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+            // The flush has already taken the quantity; cancel must not return before it is written
+            Thread canceller = new Thread(() -> writeBehind.cancel(1));
+            canceller.start();
+            canceller.join(200);
+            assertTrue(canceller.isAlive());
+
+            release.countDown();
+            canceller.join(5_000);
+            flusher.join(5_000);
+            assertFalse(canceller.isAlive());
+            assertEquals(4, stockOf(1));
+        }
+    }
+}
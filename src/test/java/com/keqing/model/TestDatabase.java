@@ -0,0 +1,50 @@
+package com.keqing.model;
+
+import com.keqing.db.ConnectionPool;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * An in-memory H2 database with the catalog tables, and a repository on top of it, for repository tests.
+ */
+final class TestDatabase implements AutoCloseable {
+
+    final ConnectionPool pool;
+    final ProductRepository repository;
+    private final String url;
+
+    TestDatabase(String name, int poolSize) throws SQLException {
+        url = "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        pool = new ConnectionPool(url, "sa", "", 0, poolSize, 60_000, 1_000);
+        execute("CREATE TABLE product_category (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), "
+                + "description VARCHAR(255))");
+        execute("CREATE TABLE products (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "description VARCHAR(1000), category INT, price DOUBLE CHECK (price >= 0), stock_quantity INT, "
+                + "weight DOUBLE, image_url VARCHAR(255), created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+                + "is_available BOOLEAN)");
+        execute("CREATE TABLE review (revId INT AUTO_INCREMENT PRIMARY KEY, product INT, star INT, "
+                + "description VARCHAR(1000), created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        execute("CREATE TABLE featured_product (id INT, `from` TIMESTAMP, `to` TIMESTAMP)");
+        repository = new ProductRepository(pool);
+    }
+
+    void execute(String sql) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    // Drops the database, so the next test with the same name starts empty
+    @Override
+    public void close() throws SQLException {
+        repository.close();
+        try (Connection conn = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+    }
+}